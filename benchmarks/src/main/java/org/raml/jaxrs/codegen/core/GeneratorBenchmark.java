@@ -0,0 +1,211 @@
+/*
+ * Copyright 2013 (c) MuleSoft, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.raml.jaxrs.codegen.core;
+
+import java.io.File;
+import java.io.StringReader;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import javax.ws.rs.core.MediaType;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.raml.model.Action;
+import org.raml.model.MimeType;
+import org.raml.model.Raml;
+import org.raml.model.Resource;
+import org.raml.model.Response;
+import org.raml.parser.loader.ResourceLoader;
+import org.raml.parser.rule.ValidationResult;
+import org.raml.parser.visitor.RamlDocumentBuilder;
+import org.raml.parser.visitor.RamlValidationService;
+
+import com.google.common.io.Files;
+
+/**
+ * Measures {@link Generator#run(java.io.Reader, Configuration)} end to end and each of its phases
+ * apart, on the bundled test RAML files and on synthetic ones of increasing size.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GeneratorBenchmark
+{
+    private static final String SYNTHETIC_PREFIX = "synthetic:";
+
+    @State(Scope.Benchmark)
+    public static class Source
+    {
+        /**
+         * Either the class path of a test RAML file, or the number of resources of a synthetic one.
+         */
+        @Param({"/org/raml/full-config-with-patch.yaml",
+            "/org/raml/integration/sales-enablement-api-with-collections.yaml", "synthetic:10",
+            "synthetic:100", "synthetic:1000"})
+        public String raml;
+
+        String ramlBuffer;
+        ResourceLoader resourceLoader;
+        Raml parsedRaml;
+        File outputDirectory;
+
+        @Setup(Level.Trial)
+        public void setUp() throws Exception
+        {
+            if (raml.startsWith(SYNTHETIC_PREFIX))
+            {
+                ramlBuffer = new SyntheticRamlBuilder().withResources(
+                    Integer.parseInt(raml.substring(SYNTHETIC_PREFIX.length()))).build();
+            }
+            else
+            {
+                ramlBuffer = IOUtils.toString(getClass().getResourceAsStream(raml));
+            }
+
+            resourceLoader = Generator.createResourceLoader(new Configuration());
+            parsedRaml = new RamlDocumentBuilder(resourceLoader).build(ramlBuffer, "");
+            outputDirectory = Files.createTempDir();
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws Exception
+        {
+            FileUtils.deleteDirectory(outputDirectory);
+        }
+
+        Configuration createConfiguration()
+        {
+            final Configuration configuration = new Configuration();
+            configuration.setOutputDirectory(outputDirectory);
+            configuration.setBasePackageName("org.raml.jaxrs.benchmark");
+            return configuration;
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class EmptyOutput
+    {
+        @Setup(Level.Invocation)
+        public void setUp(final Source source) throws Exception
+        {
+            // each run starts from scratch, like a clean build
+            FileUtils.cleanDirectory(source.outputDirectory);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class GeneratedCode
+    {
+        Context context;
+
+        @Setup(Level.Invocation)
+        public void setUp(final Source source) throws Exception
+        {
+            FileUtils.cleanDirectory(source.outputDirectory);
+            context = new Generator().generateResourceInterfaces(source.parsedRaml,
+                source.createConfiguration());
+        }
+    }
+
+    @Benchmark
+    public Set<String> endToEnd(final Source source, final EmptyOutput emptyOutput) throws Exception
+    {
+        return new Generator().run(new StringReader(source.ramlBuffer), source.createConfiguration());
+    }
+
+    @Benchmark
+    public List<ValidationResult> validation(final Source source)
+    {
+        return RamlValidationService.createDefault(source.resourceLoader).validate(source.ramlBuffer, "");
+    }
+
+    @Benchmark
+    public Raml parsing(final Source source)
+    {
+        return new RamlDocumentBuilder(source.resourceLoader).build(source.ramlBuffer, "");
+    }
+
+    /**
+     * Maps all the schemas of the RAML file to classes, as resource interfaces generation does.
+     */
+    @Benchmark
+    public Types schemaMapping(final Source source) throws Exception
+    {
+        final Types types = new Types(new Context(source.createConfiguration(), source.parsedRaml));
+        for (final Resource resource : source.parsedRaml.getResources().values())
+        {
+            mapSchemas(resource, types);
+        }
+        return types;
+    }
+
+    @Benchmark
+    public Set<String> codeModelBuild(final GeneratedCode generatedCode) throws Exception
+    {
+        return generatedCode.context.generate();
+    }
+
+    private static void mapSchemas(final Resource resource, final Types types) throws Exception
+    {
+        for (final Action action : resource.getActions().values())
+        {
+            if (action.hasBody())
+            {
+                for (final MimeType bodyMimeType : action.getBody().values())
+                {
+                    if ((!MediaType.APPLICATION_FORM_URLENCODED.equals(bodyMimeType.getType()))
+                        && (!MediaType.MULTIPART_FORM_DATA.equals(bodyMimeType.getType())))
+                    {
+                        types.getRequestEntityClass(bodyMimeType);
+                    }
+                }
+            }
+
+            for (final Response response : action.getResponses().values())
+            {
+                if (response.hasBody())
+                {
+                    for (final MimeType responseMimeType : response.getBody().values())
+                    {
+                        types.getResponseEntityClass(responseMimeType);
+                    }
+                }
+            }
+        }
+
+        for (final Resource childResource : resource.getResources().values())
+        {
+            mapSchemas(childResource, types);
+        }
+    }
+}
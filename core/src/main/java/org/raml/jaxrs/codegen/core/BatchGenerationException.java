@@ -0,0 +1,51 @@
+/*
+ * Copyright 2013 (c) MuleSoft, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.raml.jaxrs.codegen.core;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.commons.lang.StringUtils;
+
+/**
+ * Reports the RAML files a {@link BatchGenerator} failed to generate, in the order they were
+ * provided.
+ */
+public class BatchGenerationException extends Exception
+{
+    private static final long serialVersionUID = 1L;
+
+    private final Map<File, Throwable> failures;
+
+    public BatchGenerationException(final Map<File, Throwable> failures)
+    {
+        this(failures, failures.isEmpty() ? null : failures.values().iterator().next());
+    }
+
+    public BatchGenerationException(final Map<File, Throwable> failures, final Throwable cause)
+    {
+        super("Error generating Java classes from: " + StringUtils.join(failures.keySet(), ", "), cause);
+
+        this.failures = Collections.unmodifiableMap(new LinkedHashMap<File, Throwable>(failures));
+    }
+
+    public Map<File, Throwable> getFailures()
+    {
+        return failures;
+    }
+}
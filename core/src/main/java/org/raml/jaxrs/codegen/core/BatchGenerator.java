@@ -0,0 +1,297 @@
+/*
+ * Copyright 2013 (c) MuleSoft, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.raml.jaxrs.codegen.core;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang.Validate;
+import org.raml.parser.loader.ResourceLoader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Generates JAX-RS classes out of several RAML files, optionally using several threads. Each file
+ * is handled by its own {@link Generator} so concurrent runs share no code model.
+ */
+public class BatchGenerator
+{
+    private static final Logger LOGGER = LoggerFactory.getLogger(BatchGenerator.class);
+
+    private final int threads;
+    private boolean incremental;
+    private boolean pruning = true;
+    private ResourceLoader resourceLoader;
+    private final List<GenerationListener> listeners = new ArrayList<GenerationListener>();
+
+    public BatchGenerator()
+    {
+        this(1);
+    }
+
+    /**
+     * @param threads the maximum number of RAML files generated concurrently.
+     */
+    public BatchGenerator(final int threads)
+    {
+        Validate.isTrue(threads > 0, "threads must be greater than zero");
+
+        this.threads = threads;
+    }
+
+    /**
+     * When enabled, the manifest kept in the output directory is used to skip the RAML files that,
+     * like the resources they include and the configuration, didn't change since they were last
+     * generated.
+     */
+    public void setIncremental(final boolean incremental)
+    {
+        this.incremental = incremental;
+    }
+
+    /**
+     * When enabled, which is the default, a manifest kept in the output directory records the files
+     * each RAML file produces, so the files a RAML file doesn't produce anymore, or whose RAML file
+     * was deleted, are deleted while all the others are left alone. It should only be disabled when
+     * the output directory is cleaned beforehand, or shared by several concurrent runs. Incremental
+     * generation always keeps the manifest.
+     */
+    public void setPruning(final boolean pruning)
+    {
+        this.pruning = pruning;
+    }
+
+    /**
+     * Overrides the resource loader used to resolve included resources, which otherwise is the one
+     * created by {@link Generator#createResourceLoader(Configuration)}, wrapped so each resource is
+     * only loaded once per run whatever the number of RAML files including it. It is shared by all
+     * the RAML files so must be thread safe.
+     */
+    public void setResourceLoader(final ResourceLoader resourceLoader)
+    {
+        this.resourceLoader = resourceLoader;
+    }
+
+    /**
+     * Adds a listener notified of the progress of all the RAML files. As files can be generated
+     * concurrently, it must be thread safe.
+     */
+    public void addListener(final GenerationListener listener)
+    {
+        Validate.notNull(listener, "listener can't be null");
+
+        listeners.add(listener);
+    }
+
+    /**
+     * Generates all the provided RAML files. A failure doesn't prevent the other files from being
+     * generated: all failures are reported together, in the order of the provided files, once every
+     * file has been processed.
+     *
+     * @return the paths of the generated files, relative to the output directory and with '/' as
+     *         separator.
+     */
+    public Set<String> run(final Collection<File> ramlFiles, final Configuration configuration)
+        throws BatchGenerationException
+    {
+        final List<File> files = new ArrayList<File>(ramlFiles);
+        final Map<File, Throwable> failures = new LinkedHashMap<File, Throwable>();
+        final Set<String> generatedFiles = new HashSet<String>();
+
+        final File outputDirectory = configuration.getOutputDirectory();
+        final GenerationManifest manifest = (pruning || incremental)
+            ? GenerationManifest.load(outputDirectory) : null;
+        final ResourceLoader runResourceLoader = getResourceLoader(configuration);
+        // when enabled, schemas several files define under the same name are only mapped once per run
+        final ModelRegistry modelRegistry = configuration.isShareSchemaModels() ? new ModelRegistry() : null;
+
+        if ((threads == 1) || (files.size() < 2))
+        {
+            for (final File ramlFile : files)
+            {
+                try
+                {
+                    generatedFiles.addAll(run(ramlFile, configuration, manifest, runResourceLoader,
+                        modelRegistry));
+                }
+                catch (final Exception e)
+                {
+                    failures.put(ramlFile, e);
+                }
+            }
+        }
+        else
+        {
+            runConcurrently(files, configuration, manifest, runResourceLoader, modelRegistry, generatedFiles,
+                failures);
+        }
+
+        if (manifest != null)
+        {
+            manifest.retainSources(files);
+            for (final String deletedFile : manifest.pruneStaleFiles())
+            {
+                for (final GenerationListener listener : listeners)
+                {
+                    listener.fileDeleted(deletedFile);
+                }
+            }
+
+            try
+            {
+                manifest.save();
+            }
+            catch (final IOException ioe)
+            {
+                LOGGER.warn("Failed to save generation manifest in: " + outputDirectory, ioe);
+            }
+        }
+
+        if (!failures.isEmpty())
+        {
+            throw new BatchGenerationException(failures);
+        }
+
+        return generatedFiles;
+    }
+
+    private void runConcurrently(final List<File> files,
+                                 final Configuration configuration,
+                                 final GenerationManifest manifest,
+                                 final ResourceLoader runResourceLoader,
+                                 final ModelRegistry modelRegistry,
+                                 final Set<String> generatedFiles,
+                                 final Map<File, Throwable> failures) throws BatchGenerationException
+    {
+        final ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, files.size()),
+            new WorkerThreadFactory("raml-jaxrs-codegen-"));
+
+        try
+        {
+            final List<Future<Set<String>>> results = new ArrayList<Future<Set<String>>>();
+            for (final File ramlFile : files)
+            {
+                results.add(executor.submit(new Callable<Set<String>>()
+                {
+                    @Override
+                    public Set<String> call() throws Exception
+                    {
+                        return run(ramlFile, configuration, manifest, runResourceLoader, modelRegistry);
+                    }
+                }));
+            }
+
+            // collect in submission order so failures are always reported in the same order
+            for (int i = 0; i < results.size(); i++)
+            {
+                try
+                {
+                    generatedFiles.addAll(results.get(i).get());
+                }
+                catch (final ExecutionException ee)
+                {
+                    failures.put(files.get(i), ee.getCause());
+                }
+            }
+        }
+        catch (final InterruptedException ie)
+        {
+            Thread.currentThread().interrupt();
+            throw new BatchGenerationException(failures, ie);
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+    }
+
+    private Set<String> run(final File ramlFile,
+                            final Configuration configuration,
+                            final GenerationManifest manifest,
+                            final ResourceLoader runResourceLoader,
+                            final ModelRegistry modelRegistry) throws Exception
+    {
+        final byte[] ramlContent = FileUtils.readFileToByteArray(ramlFile);
+
+        if (incremental && manifest.isUpToDate(ramlFile, ramlContent, configuration, runResourceLoader))
+        {
+            LOGGER.info("Skipping up-to-date RAML file: " + ramlFile);
+            return manifest.getGeneratedFiles(ramlFile);
+        }
+
+        LOGGER.info("Generating Java classes from: " + ramlFile);
+
+        final Generator generator = new Generator();
+        generator.setModelRegistry(modelRegistry);
+        generator.setOutputPruned(manifest != null);
+        for (final GenerationListener listener : listeners)
+        {
+            generator.addListener(listener);
+        }
+
+        RecordingResourceLoader recordingResourceLoader = null;
+        if (manifest != null)
+        {
+            recordingResourceLoader = new RecordingResourceLoader(runResourceLoader);
+            generator.setResourceLoader(recordingResourceLoader);
+        }
+        else
+        {
+            generator.setResourceLoader(runResourceLoader);
+        }
+
+        final Set<String> generatedFiles = generator.run(new InputStreamReader(new ByteArrayInputStream(
+            ramlContent)), configuration);
+
+        if (manifest != null)
+        {
+            manifest.update(ramlFile, ramlContent, configuration,
+                recordingResourceLoader.getResourceDigests(), generatedFiles);
+        }
+
+        return generatedFiles;
+    }
+
+    /**
+     * @return the resource loader shared by all the RAML files of a run.
+     */
+    private ResourceLoader getResourceLoader(final Configuration configuration)
+    {
+        if (resourceLoader != null)
+        {
+            return resourceLoader;
+        }
+
+        // files changed during the run are still reloaded
+        return new ReloadingResourceLoader(configuration.getSourceDirectory(),
+            Generator.createResourceLoader(configuration), true);
+    }
+}
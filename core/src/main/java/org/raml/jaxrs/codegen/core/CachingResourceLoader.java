@@ -0,0 +1,60 @@
+/*
+ * Copyright 2013 (c) MuleSoft, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.raml.jaxrs.codegen.core;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.commons.lang.Validate;
+import org.raml.parser.loader.ResourceLoader;
+
+/**
+ * Keeps the content of every resource fetched through it so each included resource is only loaded
+ * once, however many times a RAML document refers to it.
+ */
+class CachingResourceLoader implements ResourceLoader
+{
+    private final ResourceLoader delegate;
+    private final Map<String, byte[]> resourceContents;
+
+    public CachingResourceLoader(final ResourceLoader delegate)
+    {
+        Validate.notNull(delegate, "delegate can't be null");
+
+        this.delegate = delegate;
+
+        resourceContents = new HashMap<String, byte[]>();
+    }
+
+    @Override
+    public synchronized InputStream fetchResource(final String resourceName)
+    {
+        byte[] content = resourceContents.get(resourceName);
+        if (content == null)
+        {
+            content = RecordingResourceLoader.fetchContent(delegate, resourceName);
+            if (content == null)
+            {
+                return null;
+            }
+            resourceContents.put(resourceName, content);
+        }
+
+        return new ByteArrayInputStream(content);
+    }
+}
@@ -19,8 +19,10 @@ import java.io.File;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
 
 import org.apache.commons.lang.StringUtils;
+import org.apache.commons.lang.Validate;
 import org.jsonschema2pojo.AnnotationStyle;
 import org.jsonschema2pojo.DefaultGenerationConfig;
 import org.jsonschema2pojo.GenerationConfig;
@@ -64,6 +66,13 @@ public class Configuration
     private File sourceDirectory;
     private Class methodThrowException = Exception.class;
     private Map<String, String> jsonMapperConfiguration;
+    private File modelCacheDirectory;
+    private int resourceThreads = 1;
+    private boolean streaming = false;
+    private boolean asyncResourceMethods = false;
+    private boolean streamingResponseBuilders = false;
+    private boolean streamingRequestBodies = false;
+    private boolean shareSchemaModels = false;
 
     public GenerationConfig createJsonSchemaGenerationConfig()
     {
@@ -192,6 +201,142 @@ public class Configuration
     {
        this.jsonMapperConfiguration = jsonMapperConfiguration;
     }
+
+    public File getModelCacheDirectory()
+    {
+        return modelCacheDirectory;
+    }
+
+    /**
+     * @param modelCacheDirectory a directory where to cache the model classes generated from JSON
+     *            schemas, so they're not generated again by later runs, or null to not use such a
+     *            cache.
+     */
+    public void setModelCacheDirectory(final File modelCacheDirectory)
+    {
+        this.modelCacheDirectory = modelCacheDirectory;
+    }
+
+    public int getResourceThreads()
+    {
+        return resourceThreads;
+    }
+
+    /**
+     * @param resourceThreads the number of threads generating the top-level resource interfaces of
+     *            a RAML file. The generated code doesn't depend on it.
+     */
+    public void setResourceThreads(final int resourceThreads)
+    {
+        Validate.isTrue(resourceThreads > 0, "resourceThreads must be greater than zero");
+
+        this.resourceThreads = resourceThreads;
+    }
+
+    public boolean isStreaming()
+    {
+        return streaming;
+    }
+
+    /**
+     * @param streaming whether to write each top-level resource interface as soon as it is generated
+     *            and then release it, along with its part of the parsed RAML model, so the heap used
+     *            depends on the largest resource rather than on the whole API. The generated code
+     *            doesn't depend on it.
+     */
+    public void setStreaming(final boolean streaming)
+    {
+        this.streaming = streaming;
+    }
+
+    public boolean isAsyncResourceMethods()
+    {
+        return asyncResourceMethods;
+    }
+
+    /**
+     * @param asyncResourceMethods whether resource methods should take a JAX-RS 2.0 suspended
+     *            <code>AsyncResponse</code>, to resume with their typed response, instead of returning
+     *            it, so request threads can be released while a response is computed. Requires JAX-RS
+     *            2.0.
+     */
+    public void setAsyncResourceMethods(final boolean asyncResourceMethods)
+    {
+        this.asyncResourceMethods = asyncResourceMethods;
+    }
+
+    public boolean isStreamingResponseBuilders()
+    {
+        return streamingResponseBuilders;
+    }
+
+    /**
+     * @param streamingResponseBuilders whether response builders taking an entity should also be
+     *            generated with <code>StreamingOutput</code>, <code>InputStream</code> and
+     *            <code>ReadableByteChannel</code> entity arguments, so large responses can be written
+     *            without being held in memory. These builders have the <code>Streaming</code> suffix
+     *            appended to their name (e.g. <code>withJsonOKStreaming</code>), so they don't
+     *            overload the existing ones and make calls passing a <code>null</code> entity ambiguous.
+     */
+    public void setStreamingResponseBuilders(final boolean streamingResponseBuilders)
+    {
+        this.streamingResponseBuilders = streamingResponseBuilders;
+    }
+
+    public boolean isStreamingRequestBodies()
+    {
+        return streamingRequestBodies;
+    }
+
+    /**
+     * @param streamingRequestBodies whether request bodies without a schema should be passed to
+     *            resource methods as an <code>InputStream</code>, or a <code>Reader</code> for text
+     *            media types, so large uploads can be processed without being held in memory.
+     */
+    public void setStreamingRequestBodies(final boolean streamingRequestBodies)
+    {
+        this.streamingRequestBodies = streamingRequestBodies;
+    }
+
+    public boolean isShareSchemaModels()
+    {
+        return shareSchemaModels;
+    }
+
+    /**
+     * @param shareSchemaModels whether the model classes of a JSON schema defined under the same
+     *            name by several RAML files of a batch should only be generated once, and shared by
+     *            all these files. Schemas defined under different names are never merged.
+     */
+    public void setShareSchemaModels(final boolean shareSchemaModels)
+    {
+        this.shareSchemaModels = shareSchemaModels;
+    }
+
+    /**
+     * @return a stable description of all the settings that influence the generated code, used to
+     *         detect configuration changes between two generation runs.
+     */
+    public String getFingerprint()
+    {
+        final StringBuilder fingerprint = new StringBuilder();
+        fingerprint.append("jaxrsVersion=").append(jaxrsVersion);
+        fingerprint.append(";basePackageName=").append(basePackageName);
+        fingerprint.append(";useJsr303Annotations=").append(useJsr303Annotations);
+        fingerprint.append(";jsonMapper=").append(jsonMapper);
+        fingerprint.append(";methodThrowException=").append(
+            methodThrowException == null ? null : methodThrowException.getName());
+        fingerprint.append(";sourceDirectory=").append(
+            sourceDirectory == null ? null : sourceDirectory.getAbsolutePath());
+        fingerprint.append(";jsonMapperConfiguration=").append(
+            jsonMapperConfiguration == null ? null : new TreeMap<String, String>(jsonMapperConfiguration));
+        fingerprint.append(";modelCache=").append(modelCacheDirectory != null);
+        fingerprint.append(";asyncResourceMethods=").append(asyncResourceMethods);
+        fingerprint.append(";streamingResponseBuilders=").append(streamingResponseBuilders);
+        fingerprint.append(";streamingRequestBodies=").append(streamingRequestBodies);
+        fingerprint.append(";shareSchemaModels=").append(shareSchemaModels);
+        return fingerprint.toString();
+    }
 }
 
 
@@ -18,9 +18,7 @@ package org.raml.jaxrs.codegen.core;
 import static org.raml.jaxrs.codegen.core.Constants.JAXRS_HTTP_METHODS;
 
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
-import java.io.PrintStream;
 import java.lang.annotation.Annotation;
 import java.lang.annotation.ElementType;
 import java.lang.annotation.Retention;
@@ -28,32 +26,38 @@ import java.lang.annotation.RetentionPolicy;
 import java.lang.annotation.Target;
 import java.net.URL;
 import java.util.AbstractMap.SimpleEntry;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
 
 import javax.ws.rs.HttpMethod;
 
-import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.FilenameUtils;
 import org.apache.commons.io.IOUtils;
-import org.apache.commons.io.output.ByteArrayOutputStream;
-import org.apache.commons.lang.StringUtils;
 import org.apache.commons.lang.Validate;
+import org.jsonschema2pojo.Annotator;
 import org.jsonschema2pojo.AnnotatorFactory;
 import org.jsonschema2pojo.GenerationConfig;
 import org.jsonschema2pojo.SchemaGenerator;
 import org.jsonschema2pojo.SchemaMapper;
-import org.jsonschema2pojo.SchemaStore;
 import org.jsonschema2pojo.rules.RuleFactory;
+import org.raml.jaxrs.codegen.core.ModelCache.CachedModel;
+import org.raml.jaxrs.codegen.core.ModelRegistry.RegisteredModel;
 import org.raml.model.Raml;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.google.common.io.Files;
+import com.google.common.base.Charsets;
 import com.sun.codemodel.JAnnotatable;
 import com.sun.codemodel.JClass;
 import com.sun.codemodel.JClassAlreadyExistsException;
@@ -68,25 +72,50 @@ class Context
 {
     private static final Logger LOGGER = LoggerFactory.getLogger(Context.class);
 
+    // several contexts can be generating to the same output directory concurrently
+    private static final Object OUTPUT_LOCK = new Object();
+
     private final Configuration configuration;
     private final Raml raml;
     private final JCodeModel codeModel;
     private final Map<String, Set<String>> resourcesMethods;
     private final Map<String, Object> httpMethodAnnotations;
 
+    private final GenerationConfig jsonSchemaGenerationConfig;
+    private final Annotator jsonSchemaAnnotator;
     private final SchemaMapper schemaMapper;
+    private final ModelCache modelCache;
+    private ModelRegistry modelRegistry;
+    // sources generated apart from the code model, keyed by path with '/' as separator
+    private final Map<String, byte[]> additionalSources;
+    private final Map<String, JClass> importedClasses;
+    // full names of the resource interface placeholders
+    private final Set<String> resourceInterfacePlaceholders;
+    // resource interface names assigned by another context, keyed by requested name
+    private final Map<String, String> assignedResourceInterfaceNames;
+    // files already written by emitted fragments
+    private final Set<String> emittedFiles;
+    private final GenerationListener listener;
 
     private boolean shouldGenerateResponseWrapper = false;
     private JDefinedClass currentResourceInterface;
-    private final File globalSchemaStore;
+    private final InMemorySchemaStore schemaStore;
 
     public Context(final Configuration configuration, final Raml raml) throws IOException
+    {
+        this(configuration, raml, new GenerationListeners());
+    }
+
+    public Context(final Configuration configuration, final Raml raml, final GenerationListener listener)
+        throws IOException
     {
         Validate.notNull(configuration, "configuration can't be null");
         Validate.notNull(raml, "raml can't be null");
+        Validate.notNull(listener, "listener can't be null");
 
         this.configuration = configuration;
         this.raml = raml;
+        this.listener = listener;
 
         codeModel = new JCodeModel();
 
@@ -99,69 +128,214 @@ class Context
             httpMethodAnnotations.put(clazz.getSimpleName(), clazz);
         }
 
-        // write all global schemas to a temporary directory
-        globalSchemaStore = Files.createTempDir();
+        // register all global schemas in memory
+        schemaStore = new InMemorySchemaStore();
         for (final Entry<String, String> nameAndSchema : raml.getConsolidatedSchemas().entrySet())
         {
-            final File schemaFile = new File(globalSchemaStore, nameAndSchema.getKey());
-            FileUtils.writeStringToFile(schemaFile, nameAndSchema.getValue());
+            schemaStore.addSchema(nameAndSchema.getKey(), nameAndSchema.getValue());
         }
 
         // configure the JSON -> POJO generator
-        final GenerationConfig jsonSchemaGenerationConfig = configuration.createJsonSchemaGenerationConfig();
-        schemaMapper = new SchemaMapper(new RuleFactory(jsonSchemaGenerationConfig,
-            new AnnotatorFactory().getAnnotator(configuration.getJsonMapper()),
-            new SchemaStore()), new SchemaGenerator());
+        jsonSchemaGenerationConfig = configuration.createJsonSchemaGenerationConfig();
+        jsonSchemaAnnotator = new AnnotatorFactory().getAnnotator(configuration.getJsonMapper());
+        schemaMapper = new SchemaMapper(new RuleFactory(jsonSchemaGenerationConfig, jsonSchemaAnnotator,
+            schemaStore), new SchemaGenerator());
+
+        final File modelCacheDirectory = configuration.getModelCacheDirectory();
+        modelCache = modelCacheDirectory == null ? null : new ModelCache(modelCacheDirectory);
+        additionalSources = new TreeMap<String, byte[]>();
+        importedClasses = new HashMap<String, JClass>();
+        resourceInterfacePlaceholders = new HashSet<String>();
+        assignedResourceInterfaceNames = new HashMap<String, String>();
+        emittedFiles = new HashSet<String>();
     }
 
     public Set<String> generate() throws IOException
     {
-        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        final PrintStream ps = new PrintStream(baos);
-        codeModel.build(configuration.getOutputDirectory(), ps);
-        ps.close();
+        final Set<String> generatedFiles = new HashSet<String>(emittedFiles);
+        final Set<String> writtenFiles = new HashSet<String>();
 
-        final Set<String> generatedFiles = new HashSet<String>();
-        if (shouldGenerateResponseWrapper)
+        synchronized (OUTPUT_LOCK)
         {
-            generatedFiles.add(generateResponseWrapper());
+            // only the files that changed are written, the others keep their modification time
+            final WriteIfChangedCodeWriter codeWriter = new WriteIfChangedCodeWriter(
+                configuration.getOutputDirectory());
+            listener.phaseStarted(GenerationPhase.CODE_MODEL_BUILD, "");
+            try
+            {
+                codeModel.build(codeWriter);
+            }
+            finally
+            {
+                listener.phaseCompleted(GenerationPhase.CODE_MODEL_BUILD, "");
+            }
+            generatedFiles.addAll(codeWriter.getFiles());
+            writtenFiles.addAll(codeWriter.getWrittenFiles());
+
+            if (shouldGenerateResponseWrapper)
+            {
+                generateResponseWrapper(generatedFiles, writtenFiles);
+            }
+
+            for (final Entry<String, byte[]> additionalSource : additionalSources.entrySet())
+            {
+                final String path = additionalSource.getKey();
+                final File file = new File(configuration.getOutputDirectory(),
+                    FilenameUtils.separatorsToSystem(path));
+                if (WriteIfChangedCodeWriter.writeIfChanged(file, additionalSource.getValue()))
+                {
+                    writtenFiles.add(path);
+                }
+                generatedFiles.add(path);
+            }
         }
-        generatedFiles.addAll(Arrays.asList(StringUtils.split(baos.toString())));
 
-        try
+        fireClassesGenerated(codeModel, resourceInterfacePlaceholders);
+        for (final String generatedFile : generatedFiles)
         {
-            FileUtils.deleteDirectory(globalSchemaStore);
+            listener.fileGenerated(generatedFile);
         }
-        catch (final Exception e)
+        for (final String writtenFile : writtenFiles)
         {
-            LOGGER.warn("Failed to delete temporary directory: " + globalSchemaStore);
+            listener.fileWritten(writtenFile);
         }
 
         return generatedFiles;
     }
 
     /**
-     * @return a {schema file, schema name} tuple.
+     * Adds to this context everything generated by a fragment, ie. a context used to generate some
+     * resource interfaces apart from this one. Files both contexts generate must be identical.
+     */
+    public void merge(final Context fragment) throws IOException
+    {
+        for (final Entry<String, byte[]> fragmentSource : buildFragment(fragment).entrySet())
+        {
+            addSource(fragmentSource.getKey(), fragmentSource.getValue());
+        }
+
+        shouldGenerateResponseWrapper |= fragment.shouldGenerateResponseWrapper;
+    }
+
+    /**
+     * Writes everything generated by a fragment right away instead of keeping it in this context, so
+     * the fragment can be released.
+     */
+    public void emit(final Context fragment) throws IOException
+    {
+        final Map<String, byte[]> fragmentSources = buildFragment(fragment);
+
+        synchronized (OUTPUT_LOCK)
+        {
+            for (final Entry<String, byte[]> fragmentSource : fragmentSources.entrySet())
+            {
+                final String path = fragmentSource.getKey();
+                final File file = new File(configuration.getOutputDirectory(),
+                    FilenameUtils.separatorsToSystem(path));
+                if (WriteIfChangedCodeWriter.writeIfChanged(file, fragmentSource.getValue()))
+                {
+                    listener.fileWritten(path);
+                }
+                emittedFiles.add(path);
+            }
+        }
+
+        shouldGenerateResponseWrapper |= fragment.shouldGenerateResponseWrapper;
+    }
+
+    /**
+     * @return the sources generated by a fragment, keyed by path with '/' as separator.
+     */
+    private Map<String, byte[]> buildFragment(final Context fragment) throws IOException
+    {
+        final String subject = fragment.currentResourceInterface == null
+            ? "" : fragment.currentResourceInterface.fullName();
+        final InMemoryCodeWriter codeWriter = new InMemoryCodeWriter();
+        listener.phaseStarted(GenerationPhase.CODE_MODEL_BUILD, subject);
+        try
+        {
+            fragment.codeModel.build(codeWriter);
+        }
+        finally
+        {
+            listener.phaseCompleted(GenerationPhase.CODE_MODEL_BUILD, subject);
+        }
+        fireClassesGenerated(fragment.codeModel, fragment.resourceInterfacePlaceholders);
+
+        final Map<String, byte[]> fragmentSources = new TreeMap<String, byte[]>(codeWriter.getFiles());
+        for (final String resourceInterfacePlaceholder : fragment.resourceInterfacePlaceholders)
+        {
+            fragmentSources.remove(resourceInterfacePlaceholder.replace('.', '/') + ".java");
+        }
+        fragmentSources.putAll(fragment.additionalSources);
+        return fragmentSources;
+    }
+
+    private void fireClassesGenerated(final JCodeModel classesCodeModel, final Set<String> ignoredClassNames)
+    {
+        final Iterator<JPackage> packages = classesCodeModel.packages();
+        while (packages.hasNext())
+        {
+            fireClassesGenerated(packages.next().classes(), ignoredClassNames);
+        }
+    }
+
+    private void fireClassesGenerated(final Iterator<JDefinedClass> classes, final Set<String> ignoredClassNames)
+    {
+        while (classes.hasNext())
+        {
+            final JDefinedClass clazz = classes.next();
+            if (!ignoredClassNames.contains(clazz.fullName()))
+            {
+                listener.classGenerated(clazz.fullName(), clazz.methods().size());
+                fireClassesGenerated(clazz.classes(), ignoredClassNames);
+            }
+        }
+    }
+
+    private void addSource(final String path, final byte[] source)
+    {
+        final byte[] existingSource = additionalSources.put(path, source);
+        if ((existingSource != null) && (!Arrays.equals(existingSource, source)))
+        {
+            throw new IllegalStateException("Different classes generated in: " + path);
+        }
+    }
+
+    /**
+     * @return a {schema URL, schema name} tuple.
      */
-    public Entry<File, String> getSchemaFile(final String schemaNameOrContent) throws IOException
+    public Entry<URL, String> getSchemaUrl(final String schemaNameOrContent)
     {
         if (raml.getConsolidatedSchemas().containsKey(schemaNameOrContent))
         {
             // schemaNameOrContent is actually a global name
-            return new SimpleEntry<File, String>(new File(globalSchemaStore, schemaNameOrContent),
-                schemaNameOrContent);
+            return new SimpleEntry<URL, String>(schemaStore.addSchema(schemaNameOrContent,
+                raml.getConsolidatedSchemas().get(schemaNameOrContent)), schemaNameOrContent);
         }
         else
         {
-            // this is not a global reference but a local schema def - dump it to a temp file so
-            // the type generators can pick it up
-            final String schemaFileName = "schema" + schemaNameOrContent.hashCode();
-            final File schemaFile = new File(globalSchemaStore, schemaFileName);
-            FileUtils.writeStringToFile(schemaFile, schemaNameOrContent);
-            return new SimpleEntry<File, String>(schemaFile, null);
+            // this is not a global reference but a local schema def - register it in memory so the
+            // type generators can pick it up
+            final String schemaName = "schema" + SchemaDigests.digest(schemaNameOrContent);
+            return new SimpleEntry<URL, String>(schemaStore.addSchema(schemaName, schemaNameOrContent), null);
         }
     }
 
+    /**
+     * Shares the model classes generated from JSON schemas with the other contexts using the same
+     * registry.
+     */
+    void setModelRegistry(final ModelRegistry modelRegistry)
+    {
+        this.modelRegistry = modelRegistry;
+    }
+
+    public GenerationListener getListener()
+    {
+        return listener;
+    }
+
     public Configuration getConfiguration()
     {
         return configuration;
@@ -177,7 +351,8 @@ class Context
         this.currentResourceInterface = currentResourceInterface;
     }
 
-    private String generateResponseWrapper() throws IOException
+    private void generateResponseWrapper(final Set<String> generatedFiles, final Set<String> writtenFiles)
+        throws IOException
     {
         final String template = IOUtils.toString(getClass().getResourceAsStream(
             "/org/raml/templates/ResponseWrapper." + configuration.getJaxrsVersion().toString().toLowerCase()
@@ -186,15 +361,14 @@ class Context
         final File supportPackageOutputDirectory = new File(configuration.getOutputDirectory(),
             getSupportPackage().replace('.', File.separatorChar));
 
-        supportPackageOutputDirectory.mkdirs();
-
         final File sourceOutputFile = new File(supportPackageOutputDirectory, "ResponseWrapper.java");
         final String source = template.replace("${codegen.support.package}", getSupportPackage());
-        final FileWriter fileWriter = new FileWriter(sourceOutputFile);
-        IOUtils.write(source, fileWriter);
-        IOUtils.closeQuietly(fileWriter);
-
-        return getSupportPackage().replace('.', '/') + "/ResponseWrapper.java";
+        final String path = getSupportPackage().replace('.', '/') + "/ResponseWrapper.java";
+        if (WriteIfChangedCodeWriter.writeIfChanged(sourceOutputFile, source.getBytes()))
+        {
+            writtenFiles.add(path);
+        }
+        generatedFiles.add(path);
     }
 
     public JClass getResponseWrapperType()
@@ -205,6 +379,32 @@ class Context
     }
 
     public JDefinedClass createResourceInterface(final String name) throws Exception
+    {
+        final String assignedName = assignedResourceInterfaceNames.remove(name);
+        if (assignedName != null)
+        {
+            resourcesMethods.put(assignedName, new HashSet<String>());
+            return getResourcePackage()._interface(assignedName);
+        }
+
+        return getResourcePackage()._interface(reserveResourceInterfaceName(name));
+    }
+
+    /**
+     * Makes the next resource interface created for a name get the name another context reserved
+     * for it.
+     */
+    public void assignResourceInterfaceName(final String name, final String actualName)
+    {
+        assignedResourceInterfaceNames.put(name, actualName);
+    }
+
+    /**
+     * Reserves a resource interface name without creating the interface, as if it was created.
+     *
+     * @return the actual name, unique among the resource interfaces.
+     */
+    public String reserveResourceInterfaceName(final String name)
     {
         String actualName;
         int i = -1;
@@ -217,9 +417,53 @@ class Context
                 break;
             }
         }
+        return actualName;
+    }
+
+    /**
+     * Declares empty resource interfaces standing for the ones generated by other contexts, so the
+     * code of the interfaces generated here is formatted as if they were all generated together.
+     * These interfaces are not part of the generated files.
+     *
+     * @param names the names selected by {@link #selectPlaceholderNames(Collection)}.
+     */
+    public void declareResourceInterfacePlaceholders(final Collection<String> names) throws Exception
+    {
+        final JPackage pkg = getResourcePackage();
+        for (final String name : names)
+        {
+            if (!pkg.isDefined(name))
+            {
+                resourceInterfacePlaceholders.add(pkg._interface(name).fullName());
+            }
+        }
+    }
 
-        final JPackage pkg = codeModel._package(configuration.getBasePackageName() + ".resource");
-        return pkg._interface(actualName);
+    /**
+     * Selects the resource interface names that need a placeholder in the contexts not generating
+     * them: the code model only formats classes differently when a class of their package is named
+     * like a <code>java.lang</code> class, so the other names can be left out.
+     */
+    public static List<String> selectPlaceholderNames(final Collection<String> names)
+    {
+        final List<String> placeholderNames = new ArrayList<String>();
+        for (final String name : names)
+        {
+            try
+            {
+                Class.forName("java.lang." + name, false, Object.class.getClassLoader());
+                placeholderNames.add(name);
+            }
+            catch (final ClassNotFoundException cnfe)
+            {
+                // no collision possible
+            }
+            catch (final NoClassDefFoundError ncdfe)
+            {
+                // the name of a java.lang class in another case
+            }
+        }
+        return placeholderNames;
     }
 
     public JMethod createResourceMethod(final JDefinedClass resourceInterface,
@@ -291,7 +535,158 @@ class Context
 
     public JClass generateClassFromJsonSchema(final String className, final URL schemaUrl) throws IOException
     {
-    	return schemaMapper.generate(codeModel, className, getModelPackage(), schemaUrl).boxify();
+        listener.phaseStarted(GenerationPhase.SCHEMA_MAPPING, className);
+        try
+        {
+            if ((modelCache != null) || (modelRegistry != null))
+            {
+                return getModelClassFromJsonSchema(className, schemaUrl);
+            }
+
+            return schemaMapper.generate(codeModel, className, getModelPackage(), schemaUrl).boxify();
+        }
+        finally
+        {
+            listener.phaseCompleted(GenerationPhase.SCHEMA_MAPPING, className);
+        }
+    }
+
+    /**
+     * Adds the sources of the model generated for a schema, which can come from the model registry or
+     * the model cache, to this context.
+     */
+    private JClass getModelClassFromJsonSchema(final String className, final URL schemaUrl)
+        throws IOException
+    {
+        final CachedModel model = modelRegistry != null
+            ? getRegisteredModel(className, schemaUrl) : getModel(className, schemaUrl);
+
+        // a file another RAML file of the build already wrote is identical so isn't written again
+        for (final Entry<String, byte[]> source : model.getSources().entrySet())
+        {
+            addSource(source.getKey(), source.getValue());
+        }
+
+        try
+        {
+            return codeModel.parseType(model.getTypeName()).boxify();
+        }
+        catch (final ClassNotFoundException cnfe)
+        {
+            throw new IllegalStateException("Invalid cached model type: " + model.getTypeName(), cnfe);
+        }
+    }
+
+    private CachedModel getRegisteredModel(final String className, final URL schemaUrl) throws IOException
+    {
+        final String schemaName = InMemorySchemaStore.getSchemaName(schemaUrl);
+        final String key = ModelRegistry.buildKey(jsonSchemaGenerationConfig, getModelPackage(), className,
+            schemaStore.getSchemaContent(schemaName));
+
+        final RegisteredModel registeredModel = modelRegistry.get(key, new Callable<RegisteredModel>()
+        {
+            @Override
+            public RegisteredModel call() throws Exception
+            {
+                return new RegisteredModel(schemaName, getModel(className, schemaUrl));
+            }
+        });
+
+        // the schema is the same but the schemas it refers to may not be
+        final CachedModel model = registeredModel.getModel();
+        if ((model.getDependencies() == null) || (!isUpToDate(model, registeredModel.getSchemaName())))
+        {
+            return getModel(className, schemaUrl);
+        }
+
+        LOGGER.debug("Using model classes already generated for schema: " + schemaName);
+        return model;
+    }
+
+    /**
+     * @return the model generated for a schema, possibly taken from the model cache.
+     */
+    private CachedModel getModel(final String className, final URL schemaUrl) throws IOException
+    {
+        if (modelCache == null)
+        {
+            return generateModel(className, schemaUrl);
+        }
+
+        final String schemaName = InMemorySchemaStore.getSchemaName(schemaUrl);
+        final String key = ModelCache.buildKey(jsonSchemaGenerationConfig, getModelPackage(), className,
+            schemaName, schemaStore.getSchemaContent(schemaName));
+
+        CachedModel cachedModel = modelCache.get(key);
+        if ((cachedModel == null) || (!isUpToDate(cachedModel, null)))
+        {
+            cachedModel = generateModel(className, schemaUrl);
+            if (cachedModel.getDependencies() != null)
+            {
+                modelCache.put(key, cachedModel);
+            }
+        }
+        else
+        {
+            LOGGER.debug("Using cached model classes for schema: " + schemaName);
+        }
+        return cachedModel;
+    }
+
+    /**
+     * @param ignoredSchemaName the name of a schema not to check, or null to check them all.
+     */
+    private boolean isUpToDate(final CachedModel cachedModel, final String ignoredSchemaName)
+    {
+        for (final Entry<String, String> dependency : cachedModel.getDependencies().entrySet())
+        {
+            if (dependency.getKey().equals(ignoredSchemaName))
+            {
+                continue;
+            }
+
+            final String schemaContent = schemaStore.getSchemaContent(dependency.getKey());
+            if ((schemaContent == null)
+                || (!dependency.getValue().equals(
+                    RecordingResourceLoader.digest(schemaContent.getBytes(Charsets.UTF_8)))))
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Generates the classes of a schema in a code model of their own, so they can be cached apart
+     * from all the other classes.
+     *
+     * @return the generated model, whose dependencies are null if it can't be cached because it
+     *         depends on schemas not defined in the RAML file.
+     */
+    private CachedModel generateModel(final String className, final URL schemaUrl) throws IOException
+    {
+        final InMemorySchemaStore modelSchemaStore = schemaStore.copy();
+        final JCodeModel modelCodeModel = new JCodeModel();
+        final JType type = new SchemaMapper(new RuleFactory(jsonSchemaGenerationConfig, jsonSchemaAnnotator,
+            modelSchemaStore), new SchemaGenerator()).generate(modelCodeModel, className, getModelPackage(),
+            schemaUrl);
+
+        final InMemoryCodeWriter codeWriter = new InMemoryCodeWriter();
+        modelCodeModel.build(codeWriter);
+        fireClassesGenerated(modelCodeModel, Collections.<String> emptySet());
+
+        Map<String, String> dependencies = null;
+        if (!modelSchemaStore.isExternalSchemaResolved())
+        {
+            dependencies = new TreeMap<String, String>();
+            for (final String schemaName : modelSchemaStore.getResolvedSchemaNames())
+            {
+                dependencies.put(schemaName, RecordingResourceLoader.digest(modelSchemaStore.getSchemaContent(
+                    schemaName).getBytes(Charsets.UTF_8)));
+            }
+        }
+
+        return new CachedModel(type.boxify().fullName(), dependencies, codeWriter.getFiles());
     }
 
     private JDefinedClass createCustomHttpMethodAnnotation(final String httpMethod)
@@ -307,6 +702,49 @@ class Context
         return annotationClazz;
     }
 
+    /**
+     * @return the provided class, as a class of the code model of this context.
+     */
+    public JClass importClass(final JClass clazz)
+    {
+        if (clazz.owner() == codeModel)
+        {
+            return clazz;
+        }
+
+        final String fullName = clazz.fullName();
+        JClass importedClass = importedClasses.get(fullName);
+        if (importedClass == null)
+        {
+            final List<JClass> typeParameters = clazz.getTypeParameters();
+            if (!typeParameters.isEmpty())
+            {
+                final List<JClass> importedTypeParameters = new ArrayList<JClass>();
+                for (final JClass typeParameter : typeParameters)
+                {
+                    importedTypeParameters.add(importClass(typeParameter));
+                }
+                importedClass = importClass(clazz.erasure()).narrow(importedTypeParameters);
+            }
+            else if (clazz instanceof JDefinedClass)
+            {
+                // classes generated by another context are only known by name
+                importedClass = codeModel.directClass(fullName);
+            }
+            else
+            {
+                importedClass = codeModel.ref(fullName);
+            }
+            importedClasses.put(fullName, importedClass);
+        }
+        return importedClass;
+    }
+
+    private JPackage getResourcePackage()
+    {
+        return codeModel._package(configuration.getBasePackageName() + ".resource");
+    }
+
     private String getModelPackage()
     {
         return configuration.getBasePackageName() + ".model";
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2013 (c) MuleSoft, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.raml.jaxrs.codegen.core;
+
+/**
+ * Notified of the progress of generation runs. As RAML files and resources can be generated
+ * concurrently, implementations must be thread safe; a phase starts and completes on the same
+ * thread.
+ */
+public interface GenerationListener
+{
+    void phaseStarted(GenerationPhase phase, String subject);
+
+    void phaseCompleted(GenerationPhase phase, String subject);
+
+    /**
+     * Called for every class, nested ones included, built out of a code model. Model classes served
+     * from the model cache are only reported as files.
+     */
+    void classGenerated(String className, int methodCount);
+
+    /**
+     * @param path the path of the generated file, relative to the output directory and with '/'
+     *            as separator.
+     */
+    void fileGenerated(String path);
+
+    /**
+     * Called for the generated files actually written, as opposed to the ones left alone because
+     * their content didn't change.
+     *
+     * @param path the path of the written file, relative to the output directory and with '/'
+     *            as separator.
+     */
+    void fileWritten(String path);
+
+    /**
+     * Called for the previously generated files deleted because no RAML file generates them anymore.
+     *
+     * @param path the path of the deleted file, relative to the output directory and with '/'
+     *            as separator.
+     */
+    void fileDeleted(String path);
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2013 (c) MuleSoft, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.raml.jaxrs.codegen.core;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Dispatches events to several listeners.
+ */
+class GenerationListeners implements GenerationListener
+{
+    private final List<GenerationListener> listeners = new CopyOnWriteArrayList<GenerationListener>();
+
+    public void add(final GenerationListener listener)
+    {
+        listeners.add(listener);
+    }
+
+    @Override
+    public void phaseStarted(final GenerationPhase phase, final String subject)
+    {
+        for (final GenerationListener listener : listeners)
+        {
+            listener.phaseStarted(phase, subject);
+        }
+    }
+
+    @Override
+    public void phaseCompleted(final GenerationPhase phase, final String subject)
+    {
+        for (final GenerationListener listener : listeners)
+        {
+            listener.phaseCompleted(phase, subject);
+        }
+    }
+
+    @Override
+    public void classGenerated(final String className, final int methodCount)
+    {
+        for (final GenerationListener listener : listeners)
+        {
+            listener.classGenerated(className, methodCount);
+        }
+    }
+
+    @Override
+    public void fileGenerated(final String path)
+    {
+        for (final GenerationListener listener : listeners)
+        {
+            listener.fileGenerated(path);
+        }
+    }
+
+    @Override
+    public void fileWritten(final String path)
+    {
+        for (final GenerationListener listener : listeners)
+        {
+            listener.fileWritten(path);
+        }
+    }
+
+    @Override
+    public void fileDeleted(final String path)
+    {
+        for (final GenerationListener listener : listeners)
+        {
+            listener.fileDeleted(path);
+        }
+    }
+}
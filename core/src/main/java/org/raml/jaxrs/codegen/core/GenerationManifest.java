@@ -0,0 +1,366 @@
+/*
+ * Copyright 2013 (c) MuleSoft, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.raml.jaxrs.codegen.core;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import org.apache.commons.io.FilenameUtils;
+import org.apache.commons.lang.Validate;
+import org.raml.parser.loader.ResourceLoader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.common.base.Charsets;
+
+/**
+ * Records in the output directory, for each RAML file, digests of its content, of the resources it
+ * includes and of the configuration, along with the files it produced. This allows skipping RAML
+ * files that didn't change and pruning the files a RAML file doesn't produce anymore. Generated files
+ * are recorded with '/' as separator, so the manifest is portable across platforms.
+ */
+class GenerationManifest
+{
+    static final String FILE_NAME = ".raml-jaxrs-codegen.json";
+
+    private static final int VERSION = 1;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(GenerationManifest.class);
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private final File outputDirectory;
+    private final Map<String, SourceRecord> sourceRecords;
+    private final Set<String> pruneCandidates;
+
+    private GenerationManifest(final File outputDirectory)
+    {
+        this.outputDirectory = outputDirectory;
+
+        sourceRecords = new TreeMap<String, SourceRecord>();
+        pruneCandidates = new TreeSet<String>();
+    }
+
+    /**
+     * @return the manifest stored in the output directory, or an empty one if there is none or it
+     *         can't be read.
+     */
+    public static GenerationManifest load(final File outputDirectory)
+    {
+        Validate.notNull(outputDirectory, "outputDirectory can't be null");
+
+        final GenerationManifest manifest = new GenerationManifest(outputDirectory);
+
+        final File manifestFile = new File(outputDirectory, FILE_NAME);
+        if (!manifestFile.isFile())
+        {
+            return manifest;
+        }
+
+        try
+        {
+            final JsonNode root = OBJECT_MAPPER.readTree(manifestFile);
+            if (root.path("version").asInt() != VERSION)
+            {
+                LOGGER.info("Ignoring manifest with unsupported version: " + manifestFile);
+                return manifest;
+            }
+
+            final Iterator<Entry<String, JsonNode>> sources = root.path("sources").fields();
+            while (sources.hasNext())
+            {
+                final Entry<String, JsonNode> source = sources.next();
+                manifest.sourceRecords.put(source.getKey(), SourceRecord.fromJson(source.getValue()));
+            }
+        }
+        catch (final Exception e)
+        {
+            LOGGER.warn("Ignoring unreadable manifest: " + manifestFile, e);
+            manifest.sourceRecords.clear();
+        }
+
+        return manifest;
+    }
+
+    /**
+     * @return true if neither the RAML content, the resources it includes nor the configuration
+     *         changed since it was last generated, and all the files it produced are still present.
+     */
+    public synchronized boolean isUpToDate(final File ramlFile,
+                                           final byte[] ramlContent,
+                                           final Configuration configuration,
+                                           final ResourceLoader resourceLoader)
+    {
+        final SourceRecord sourceRecord = sourceRecords.get(getSourceKey(ramlFile));
+
+        if ((sourceRecord == null)
+            || (!sourceRecord.ramlDigest.equals(RecordingResourceLoader.digest(ramlContent)))
+            || (!sourceRecord.configurationDigest.equals(getConfigurationDigest(configuration))))
+        {
+            return false;
+        }
+
+        for (final String generatedFile : sourceRecord.generatedFiles)
+        {
+            if (!new File(outputDirectory, FilenameUtils.separatorsToSystem(generatedFile)).isFile())
+            {
+                return false;
+            }
+        }
+
+        for (final Entry<String, String> includeDigest : sourceRecord.includeDigests.entrySet())
+        {
+            final byte[] includeContent = RecordingResourceLoader.fetchContent(resourceLoader,
+                includeDigest.getKey());
+
+            if ((includeContent == null)
+                || (!includeDigest.getValue().equals(RecordingResourceLoader.digest(includeContent))))
+            {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    public synchronized Set<String> getGeneratedFiles(final File ramlFile)
+    {
+        final SourceRecord sourceRecord = sourceRecords.get(getSourceKey(ramlFile));
+
+        return sourceRecord == null ? Collections.<String> emptySet() : new HashSet<String>(
+            sourceRecord.generatedFiles);
+    }
+
+    /**
+     * Records the outcome of generating a RAML file. Files it previously produced but didn't produce
+     * this time become candidates for {@link #pruneStaleFiles()}.
+     */
+    public synchronized void update(final File ramlFile,
+                                    final byte[] ramlContent,
+                                    final Configuration configuration,
+                                    final Map<String, String> includeDigests,
+                                    final Set<String> generatedFiles)
+    {
+        final SourceRecord sourceRecord = new SourceRecord();
+        sourceRecord.ramlDigest = RecordingResourceLoader.digest(ramlContent);
+        sourceRecord.configurationDigest = getConfigurationDigest(configuration);
+        sourceRecord.includeDigests.putAll(includeDigests);
+        for (final String generatedFile : generatedFiles)
+        {
+            sourceRecord.generatedFiles.add(FilenameUtils.separatorsToUnix(generatedFile));
+        }
+
+        final SourceRecord previousRecord = sourceRecords.put(getSourceKey(ramlFile), sourceRecord);
+        if (previousRecord != null)
+        {
+            pruneCandidates.addAll(previousRecord.generatedFiles);
+        }
+    }
+
+    /**
+     * Forgets the RAML files that are neither part of the provided ones nor present anymore, their
+     * files becoming candidates for {@link #pruneStaleFiles()}. RAML files still present keep their
+     * files, as they may just be generated apart into the same output directory.
+     */
+    public synchronized void retainSources(final Collection<File> ramlFiles)
+    {
+        final Set<String> sourceKeys = new HashSet<String>();
+        for (final File ramlFile : ramlFiles)
+        {
+            sourceKeys.add(getSourceKey(ramlFile));
+        }
+
+        final Iterator<Entry<String, SourceRecord>> sourceRecordsIterator = sourceRecords.entrySet()
+            .iterator();
+        while (sourceRecordsIterator.hasNext())
+        {
+            final Entry<String, SourceRecord> sourceRecord = sourceRecordsIterator.next();
+            if ((!sourceKeys.contains(sourceRecord.getKey())) && (!new File(sourceRecord.getKey()).exists()))
+            {
+                pruneCandidates.addAll(sourceRecord.getValue().generatedFiles);
+                sourceRecordsIterator.remove();
+            }
+        }
+    }
+
+    /**
+     * Deletes the candidate files that no RAML file produces anymore. Must only be called once no
+     * generation is running anymore, as a file can move from one RAML file to another.
+     *
+     * @return the deleted files, relative to the output directory and with '/' as separator.
+     */
+    public synchronized Set<String> pruneStaleFiles()
+    {
+        final Set<String> producedFiles = new HashSet<String>();
+        for (final SourceRecord sourceRecord : sourceRecords.values())
+        {
+            producedFiles.addAll(sourceRecord.generatedFiles);
+        }
+
+        final Set<String> deletedFiles = new TreeSet<String>();
+        for (final String pruneCandidate : pruneCandidates)
+        {
+            if (!producedFiles.contains(pruneCandidate) && delete(pruneCandidate))
+            {
+                deletedFiles.add(pruneCandidate);
+            }
+        }
+        pruneCandidates.clear();
+
+        return deletedFiles;
+    }
+
+    public synchronized void save() throws IOException
+    {
+        final ObjectNode root = OBJECT_MAPPER.createObjectNode();
+        root.put("version", VERSION);
+
+        final ObjectNode sources = root.putObject("sources");
+        for (final Entry<String, SourceRecord> sourceRecord : sourceRecords.entrySet())
+        {
+            sources.put(sourceRecord.getKey(), sourceRecord.getValue().toJson());
+        }
+
+        OBJECT_MAPPER.writerWithDefaultPrettyPrinter().writeValue(new File(outputDirectory, FILE_NAME),
+            root);
+    }
+
+    private boolean delete(final String generatedFile)
+    {
+        final File canonicalOutputDirectory;
+        File file;
+        try
+        {
+            canonicalOutputDirectory = outputDirectory.getCanonicalFile();
+            file = new File(outputDirectory, FilenameUtils.separatorsToSystem(generatedFile))
+                .getCanonicalFile();
+        }
+        catch (final IOException ioe)
+        {
+            LOGGER.warn("Failed to resolve stale generated file: " + generatedFile, ioe);
+            return false;
+        }
+
+        // the manifest can't be trusted to only list files of the output directory
+        if (!isInside(file, canonicalOutputDirectory))
+        {
+            LOGGER.warn("Not deleting stale generated file outside of the output directory: " + generatedFile);
+            return false;
+        }
+
+        if (!file.delete())
+        {
+            return false;
+        }
+
+        LOGGER.info("Deleted stale generated file: " + generatedFile);
+
+        // clean up the package directories left empty
+        file = file.getParentFile();
+        while ((file != null) && (!file.equals(canonicalOutputDirectory)) && (file.delete()))
+        {
+            file = file.getParentFile();
+        }
+
+        return true;
+    }
+
+    private static boolean isInside(final File file, final File directory)
+    {
+        for (File parent = file.getParentFile(); parent != null; parent = parent.getParentFile())
+        {
+            if (parent.equals(directory))
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String getSourceKey(final File ramlFile)
+    {
+        return ramlFile.getAbsolutePath();
+    }
+
+    private static String getConfigurationDigest(final Configuration configuration)
+    {
+        return RecordingResourceLoader.digest(configuration.getFingerprint().getBytes(Charsets.UTF_8));
+    }
+
+    private static class SourceRecord
+    {
+        private String ramlDigest;
+        private String configurationDigest;
+        private final Map<String, String> includeDigests = new TreeMap<String, String>();
+        private final Set<String> generatedFiles = new TreeSet<String>();
+
+        private static SourceRecord fromJson(final JsonNode json)
+        {
+            final SourceRecord sourceRecord = new SourceRecord();
+            sourceRecord.ramlDigest = json.path("raml").asText();
+            sourceRecord.configurationDigest = json.path("configuration").asText();
+
+            final Iterator<Entry<String, JsonNode>> includes = json.path("includes").fields();
+            while (includes.hasNext())
+            {
+                final Entry<String, JsonNode> include = includes.next();
+                sourceRecord.includeDigests.put(include.getKey(), include.getValue().asText());
+            }
+
+            // manifests written by previous versions on Windows used the platform separator
+            for (final JsonNode generatedFile : json.path("files"))
+            {
+                sourceRecord.generatedFiles.add(FilenameUtils.separatorsToUnix(generatedFile.asText()));
+            }
+
+            return sourceRecord;
+        }
+
+        private ObjectNode toJson()
+        {
+            final ObjectNode json = OBJECT_MAPPER.createObjectNode();
+            json.put("raml", ramlDigest);
+            json.put("configuration", configurationDigest);
+
+            final ObjectNode includes = json.putObject("includes");
+            for (final Entry<String, String> includeDigest : includeDigests.entrySet())
+            {
+                includes.put(includeDigest.getKey(), includeDigest.getValue());
+            }
+
+            final ArrayNode files = json.putArray("files");
+            for (final String generatedFile : generatedFiles)
+            {
+                files.add(generatedFile);
+            }
+
+            return json;
+        }
+    }
+}
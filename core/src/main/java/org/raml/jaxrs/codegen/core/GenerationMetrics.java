@@ -0,0 +1,312 @@
+/*
+ * Copyright 2013 (c) MuleSoft, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.raml.jaxrs.codegen.core;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * A {@link GenerationListener} recording the wall time and, when the JVM supports it, the heap
+ * allocated by each phase, along with the number of classes, methods and files generated. Phases
+ * nest: the time of a resource interface includes the schema mappings it triggers.
+ */
+public class GenerationMetrics implements GenerationListener
+{
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private final ThreadLocal<Map<String, long[]>> startedPhases = new ThreadLocal<Map<String, long[]>>()
+    {
+        @Override
+        protected Map<String, long[]> initialValue()
+        {
+            return new HashMap<String, long[]>();
+        }
+    };
+
+    private final List<Sample> samples = new ArrayList<Sample>();
+    private final AtomicInteger classCount = new AtomicInteger();
+    private final AtomicInteger methodCount = new AtomicInteger();
+    private final AtomicInteger fileCount = new AtomicInteger();
+    private final AtomicInteger writtenFileCount = new AtomicInteger();
+    private final AtomicInteger deletedFileCount = new AtomicInteger();
+
+    @Override
+    public void phaseStarted(final GenerationPhase phase, final String subject)
+    {
+        startedPhases.get().put(phase + ":" + subject,
+            new long[]{System.nanoTime(), getCurrentThreadAllocatedBytes()});
+    }
+
+    @Override
+    public void phaseCompleted(final GenerationPhase phase, final String subject)
+    {
+        final long[] start = startedPhases.get().remove(phase + ":" + subject);
+        if (start == null)
+        {
+            return;
+        }
+
+        final long wallTime = System.nanoTime() - start[0];
+        final long allocatedBytes = getCurrentThreadAllocatedBytes();
+        final Sample sample = new Sample(phase, subject, wallTime, (allocatedBytes < 0) || (start[1] < 0)
+            ? -1L : allocatedBytes - start[1]);
+        synchronized (samples)
+        {
+            samples.add(sample);
+        }
+    }
+
+    @Override
+    public void classGenerated(final String className, final int methodCount)
+    {
+        classCount.incrementAndGet();
+        this.methodCount.addAndGet(methodCount);
+    }
+
+    @Override
+    public void fileGenerated(final String path)
+    {
+        fileCount.incrementAndGet();
+    }
+
+    @Override
+    public void fileWritten(final String path)
+    {
+        writtenFileCount.incrementAndGet();
+    }
+
+    @Override
+    public void fileDeleted(final String path)
+    {
+        deletedFileCount.incrementAndGet();
+    }
+
+    /**
+     * @return the completed phases, in completion order.
+     */
+    public List<Sample> getSamples()
+    {
+        synchronized (samples)
+        {
+            return Collections.unmodifiableList(new ArrayList<Sample>(samples));
+        }
+    }
+
+    /**
+     * @return the total wall time of a phase, in nanoseconds.
+     */
+    public long getWallTime(final GenerationPhase phase)
+    {
+        long wallTime = 0L;
+        for (final Sample sample : getSamples())
+        {
+            if (sample.getPhase() == phase)
+            {
+                wallTime += sample.getWallTime();
+            }
+        }
+        return wallTime;
+    }
+
+    /**
+     * @return the total heap allocated by a phase, in bytes, or -1 if the JVM doesn't measure it.
+     */
+    public long getAllocatedBytes(final GenerationPhase phase)
+    {
+        long allocatedBytes = 0L;
+        for (final Sample sample : getSamples())
+        {
+            if (sample.getPhase() == phase)
+            {
+                if (sample.getAllocatedBytes() < 0)
+                {
+                    return -1L;
+                }
+                allocatedBytes += sample.getAllocatedBytes();
+            }
+        }
+        return allocatedBytes;
+    }
+
+    public int getClassCount()
+    {
+        return classCount.get();
+    }
+
+    public int getMethodCount()
+    {
+        return methodCount.get();
+    }
+
+    public int getFileCount()
+    {
+        return fileCount.get();
+    }
+
+    /**
+     * @return the number of generated files actually written, their content having changed.
+     */
+    public int getWrittenFileCount()
+    {
+        return writtenFileCount.get();
+    }
+
+    public int getDeletedFileCount()
+    {
+        return deletedFileCount.get();
+    }
+
+    /**
+     * Writes these metrics as a JSON report: totals per phase, then every sample, then the counts.
+     */
+    public void writeReport(final File reportFile) throws IOException
+    {
+        final ObjectNode root = OBJECT_MAPPER.createObjectNode();
+
+        final Map<GenerationPhase, long[]> totals = new EnumMap<GenerationPhase, long[]>(GenerationPhase.class);
+        final ArrayNode samplesNode = OBJECT_MAPPER.createArrayNode();
+        for (final Sample sample : getSamples())
+        {
+            long[] total = totals.get(sample.getPhase());
+            if (total == null)
+            {
+                total = new long[3];
+                totals.put(sample.getPhase(), total);
+            }
+            total[0]++;
+            total[1] += sample.getWallTime();
+            total[2] = (total[2] < 0) || (sample.getAllocatedBytes() < 0)
+                ? -1L : total[2] + sample.getAllocatedBytes();
+
+            samplesNode.add(sample.toJson());
+        }
+
+        final ObjectNode phasesNode = root.putObject("phases");
+        for (final Map.Entry<GenerationPhase, long[]> total : totals.entrySet())
+        {
+            final ObjectNode phaseNode = phasesNode.putObject(total.getKey().name());
+            phaseNode.put("count", total.getValue()[0]);
+            phaseNode.put("wallTimeNanos", total.getValue()[1]);
+            phaseNode.put("allocatedBytes", total.getValue()[2]);
+        }
+        root.put("samples", samplesNode);
+        root.put("classes", getClassCount());
+        root.put("methods", getMethodCount());
+        root.put("files", getFileCount());
+        root.put("writtenFiles", getWrittenFileCount());
+        root.put("deletedFiles", getDeletedFileCount());
+
+        final File parentDirectory = reportFile.getAbsoluteFile().getParentFile();
+        if (!parentDirectory.isDirectory() && !parentDirectory.mkdirs())
+        {
+            throw new IOException("Failed to create directory: " + parentDirectory);
+        }
+        OBJECT_MAPPER.writerWithDefaultPrettyPrinter().writeValue(reportFile, root);
+    }
+
+    /**
+     * @return the heap allocated so far by the current thread, or -1 if the JVM doesn't measure it.
+     */
+    private static long getCurrentThreadAllocatedBytes()
+    {
+        try
+        {
+            final java.lang.management.ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+            if (threadMXBean instanceof com.sun.management.ThreadMXBean)
+            {
+                final com.sun.management.ThreadMXBean sunThreadMXBean =
+                    (com.sun.management.ThreadMXBean) threadMXBean;
+                if (sunThreadMXBean.isThreadAllocatedMemorySupported()
+                    && sunThreadMXBean.isThreadAllocatedMemoryEnabled())
+                {
+                    return sunThreadMXBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+                }
+            }
+        }
+        catch (final LinkageError le)
+        {
+            // not a HotSpot JVM
+        }
+        return -1L;
+    }
+
+    /**
+     * The measure of a completed phase.
+     */
+    public static class Sample
+    {
+        private final GenerationPhase phase;
+        private final String subject;
+        private final long wallTime;
+        private final long allocatedBytes;
+
+        Sample(final GenerationPhase phase, final String subject, final long wallTime, final long allocatedBytes)
+        {
+            this.phase = phase;
+            this.subject = subject;
+            this.wallTime = wallTime;
+            this.allocatedBytes = allocatedBytes;
+        }
+
+        public GenerationPhase getPhase()
+        {
+            return phase;
+        }
+
+        public String getSubject()
+        {
+            return subject;
+        }
+
+        /**
+         * @return the wall time of the phase, in nanoseconds.
+         */
+        public long getWallTime()
+        {
+            return wallTime;
+        }
+
+        /**
+         * @return the heap allocated by the phase, in bytes, or -1 if the JVM doesn't measure it.
+         */
+        public long getAllocatedBytes()
+        {
+            return allocatedBytes;
+        }
+
+        private ObjectNode toJson()
+        {
+            final ObjectNode json = OBJECT_MAPPER.createObjectNode();
+            json.put("phase", phase.name());
+            json.put("subject", subject);
+            json.put("wallTimeNanos", wallTime);
+            json.put("allocatedBytes", allocatedBytes);
+            return json;
+        }
+    }
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright 2013 (c) MuleSoft, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.raml.jaxrs.codegen.core;
+
+/**
+ * The phases of a generation run reported to {@link GenerationListener}s.
+ */
+public enum GenerationPhase
+{
+    /**
+     * Validation of a RAML document.
+     */
+    VALIDATION,
+
+    /**
+     * Parsing of a validated RAML document.
+     */
+    PARSING,
+
+    /**
+     * Generation of a top-level resource interface, including the schema mappings it triggers. The
+     * subject is the URI of the resource.
+     */
+    RESOURCE_INTERFACE,
+
+    /**
+     * Generation of the classes mapping a JSON schema. The subject is the name of the main class.
+     */
+    SCHEMA_MAPPING,
+
+    /**
+     * Building of a code model into source files. The subject is the name of the resource interface
+     * of a code model generated apart, empty for the main code model.
+     */
+    CODE_MODEL_BUILD
+}
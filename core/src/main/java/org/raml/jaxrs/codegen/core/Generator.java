@@ -15,6 +15,8 @@
  */
 package org.raml.jaxrs.codegen.core;
 
+import static com.sun.codemodel.JMod.FINAL;
+import static com.sun.codemodel.JMod.PRIVATE;
 import static com.sun.codemodel.JMod.PUBLIC;
 import static com.sun.codemodel.JMod.STATIC;
 import static org.apache.commons.lang.StringUtils.capitalize;
@@ -22,25 +24,40 @@ import static org.apache.commons.lang.StringUtils.defaultString;
 import static org.apache.commons.lang.StringUtils.isNotBlank;
 import static org.apache.commons.lang.StringUtils.join;
 import static org.apache.commons.lang.StringUtils.strip;
+import static org.apache.commons.lang.StringUtils.substringAfter;
+import static org.apache.commons.lang.StringUtils.substringBefore;
 import static org.apache.commons.lang.builder.ToStringStyle.SHORT_PREFIX_STYLE;
 import static org.raml.jaxrs.codegen.core.Constants.RESPONSE_HEADER_WILDCARD_SYMBOL;
+import static org.raml.jaxrs.codegen.core.Names.ASYNC_RESPONSE_ARGUMENT_NAME;
 import static org.raml.jaxrs.codegen.core.Names.EXAMPLE_PREFIX;
 import static org.raml.jaxrs.codegen.core.Names.GENERIC_PAYLOAD_ARGUMENT_NAME;
 import static org.raml.jaxrs.codegen.core.Names.MULTIPLE_RESPONSE_HEADERS_ARGUMENT_NAME;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.Reader;
 import java.lang.annotation.Annotation;
 import java.math.BigDecimal;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Pattern;
 
 import javax.mail.internet.MimeMultipart;
 import javax.validation.constraints.Max;
@@ -59,12 +76,14 @@ import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.MultivaluedMap;
 import javax.ws.rs.core.Response.ResponseBuilder;
+import javax.ws.rs.core.StreamingOutput;
 
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang.StringUtils;
 import org.apache.commons.lang.Validate;
 import org.apache.commons.lang.builder.ToStringBuilder;
 import org.apache.commons.lang.math.NumberUtils;
+import org.raml.jaxrs.codegen.core.Configuration.JaxrsVersion;
 import org.raml.model.Action;
 import org.raml.model.MimeType;
 import org.raml.model.Raml;
@@ -92,9 +111,12 @@ import com.sun.codemodel.JAnnotationArrayMember;
 import com.sun.codemodel.JAnnotationUse;
 import com.sun.codemodel.JBlock;
 import com.sun.codemodel.JClass;
+import com.sun.codemodel.JCodeModel;
 import com.sun.codemodel.JDefinedClass;
 import com.sun.codemodel.JDocComment;
 import com.sun.codemodel.JExpr;
+import com.sun.codemodel.JExpression;
+import com.sun.codemodel.JFieldVar;
 import com.sun.codemodel.JInvocation;
 import com.sun.codemodel.JMethod;
 import com.sun.codemodel.JMod;
@@ -105,23 +127,119 @@ public class Generator
 {
     private static final String DEFAULT_ANNOTATION_PARAMETER = "value";
 
+    // JAX-RS 2.0 classes, which can't be referred to directly while supporting JAX-RS 1.1
+    private static final String ASYNC_RESPONSE_CLASS_NAME = "javax.ws.rs.container.AsyncResponse";
+    private static final String SUSPENDED_CLASS_NAME = "javax.ws.rs.container.Suspended";
+
+    // the name suffix and entity types of the additional builders generated for streaming responses
+    private static final String STREAMING_RESPONSE_BUILDER_SUFFIX = "Streaming";
+    private static final List<Class<?>> STREAMING_RESPONSE_ENTITY_CLASSES = Arrays.<Class<?>> asList(
+        StreamingOutput.class, InputStream.class, ReadableByteChannel.class);
+
+    // the characters of the type, subtype and parameter names of media types (RFC 7230)
+    private static final Pattern MEDIA_TYPE_TOKEN = Pattern.compile("[\\w!#$%&'*+.^`|~-]+");
+
     private static final Logger LOGGER = LoggerFactory.getLogger(Generator.class);
 
     private Context context;
     private Types types;
+    private ResourceLoader resourceLoader;
+    private ModelRegistry modelRegistry;
+    private boolean outputPruned;
+    private final List<GenerationListener> listeners = new ArrayList<GenerationListener>();
+    private GenerationListener listener = new GenerationListeners();
+    private GenerationMetrics metrics;
+    // the media type each media type constant of the resource interfaces stands for
+    private final Map<JFieldVar, String> mediaTypeConstants = new HashMap<JFieldVar, String>();
+
+    /**
+     * Overrides the resource loader used to resolve included resources, which otherwise is the one
+     * created by {@link #createResourceLoader(Configuration)}.
+     */
+    public void setResourceLoader(final ResourceLoader resourceLoader)
+    {
+        this.resourceLoader = resourceLoader;
+    }
+
+    /**
+     * Sets a registry of the model classes generated from JSON schemas, so the schemas another
+     * generator using the same registry already mapped under the same name refer to the same classes
+     * instead of being mapped again.
+     */
+    public void setModelRegistry(final ModelRegistry modelRegistry)
+    {
+        this.modelRegistry = modelRegistry;
+    }
+
+    /**
+     * Tells the files found in the output directory are pruned by the caller when not generated
+     * anymore, so they are expected and safe.
+     */
+    void setOutputPruned(final boolean outputPruned)
+    {
+        this.outputPruned = outputPruned;
+    }
+
+    /**
+     * Adds a listener notified of the progress of the next runs.
+     */
+    public void addListener(final GenerationListener listener)
+    {
+        Validate.notNull(listener, "listener can't be null");
+
+        listeners.add(listener);
+    }
+
+    /**
+     * @return the metrics of the last run, or null if there was none.
+     */
+    public GenerationMetrics getMetrics()
+    {
+        return metrics;
+    }
 
     public Set<String> run(final Reader ramlReader, final Configuration configuration) throws Exception
     {
+        metrics = new GenerationMetrics();
+        final GenerationListeners runListeners = new GenerationListeners();
+        runListeners.add(metrics);
+        for (final GenerationListener addedListener : listeners)
+        {
+            runListeners.add(addedListener);
+        }
+        listener = runListeners;
+
         final String ramlBuffer = IOUtils.toString(ramlReader);
-        
-        ResourceLoader[] loaderArray = prepareResourceLoaders(configuration);
-        
-        final List<ValidationResult> results = RamlValidationService.createDefault(
-                new CompositeResourceLoader(loaderArray)).validate(ramlBuffer, "");
+
+        // a single loader serves both validation and build, caching included resources so each is
+        // only loaded once per run
+        final ResourceLoader loader = new CachingResourceLoader(
+            resourceLoader != null ? resourceLoader : createResourceLoader(configuration));
+
+        listener.phaseStarted(GenerationPhase.VALIDATION, "");
+        final List<ValidationResult> results;
+        try
+        {
+            results = RamlValidationService.createDefault(loader).validate(ramlBuffer, "");
+        }
+        finally
+        {
+            listener.phaseCompleted(GenerationPhase.VALIDATION, "");
+        }
+
         if (ValidationResult.areValid(results))
         {
-            return run(new RamlDocumentBuilder(new CompositeResourceLoader(
-                     loaderArray)).build(ramlBuffer, ""), configuration);
+            final Raml raml;
+            listener.phaseStarted(GenerationPhase.PARSING, "");
+            try
+            {
+                raml = new RamlDocumentBuilder(loader).build(ramlBuffer, "");
+            }
+            finally
+            {
+                listener.phaseCompleted(GenerationPhase.PARSING, "");
+            }
+            return run(raml, configuration);
         }
         else
         {
@@ -139,20 +257,23 @@ public class Generator
         }
     }
 
-	private ResourceLoader[] prepareResourceLoaders(final Configuration configuration)
-	{
-		File sourceDirectory = configuration.getSourceDirectory();		        
-        ArrayList<ResourceLoader> loaderList = new ArrayList<ResourceLoader>(Arrays.asList(
-        	new UrlResourceLoader(),
-            new ClassPathResourceLoader()
-        )); 
-        if(sourceDirectory!=null){
-        	String sourceDirAbsPath = sourceDirectory.getAbsolutePath();
-            loaderList.add(new FileResourceLoader(sourceDirAbsPath));
+    /**
+     * @return the default resource loader, which resolves included resources as URLs, class path
+     *         resources or files relative to the configured source directory.
+     */
+    public static ResourceLoader createResourceLoader(final Configuration configuration)
+    {
+        final List<ResourceLoader> loaderList = new ArrayList<ResourceLoader>(Arrays.asList(
+            new UrlResourceLoader(), new ClassPathResourceLoader()));
+
+        final File sourceDirectory = configuration.getSourceDirectory();
+        if (sourceDirectory != null)
+        {
+            loaderList.add(new FileResourceLoader(sourceDirectory.getAbsolutePath()));
         }
-        ResourceLoader[] loaderArray = loaderList.toArray(new ResourceLoader[loaderList.size()]);
-        return loaderArray;
-	}
+
+        return new CompositeResourceLoader(loaderList.toArray(new ResourceLoader[loaderList.size()]));
+    }
 
     private void validate(final Configuration configuration)
     {
@@ -164,7 +285,7 @@ public class Generator
         Validate.isTrue(outputDirectory.isDirectory(), outputDirectory + " is not a pre-existing directory");
         Validate.isTrue(outputDirectory.canWrite(), outputDirectory + " can't be written to");
 
-        if (outputDirectory.listFiles().length > 0)
+        if ((!outputPruned) && (outputDirectory.listFiles().length > 0))
         {
             LOGGER.warn("Directory "
                         + outputDirectory
@@ -172,21 +293,235 @@ public class Generator
         }
 
         Validate.notEmpty(configuration.getBasePackageName(), "base package name can't be empty");
+        Validate.isTrue((!configuration.isAsyncResourceMethods())
+                        || (configuration.getJaxrsVersion() == JaxrsVersion.JAXRS_2_0),
+            "asynchronous resource methods require JAX-RS 2.0");
     }
 
     private Set<String> run(final Raml raml, final Configuration configuration) throws Exception
+    {
+        return generateResourceInterfaces(raml, configuration).generate();
+    }
+
+    /**
+     * @return the context holding the generated code, which is not written yet unless generating in
+     *         streaming mode. In that mode, the resources of the RAML model are released as they are
+     *         generated.
+     */
+    Context generateResourceInterfaces(final Raml raml, final Configuration configuration) throws Exception
     {
         validate(configuration);
 
-        context = new Context(configuration, raml);
-        types = new Types(context);
+        context = new Context(configuration, raml, listener);
+        context.setModelRegistry(modelRegistry);
+        // fragments share the schema classes
+        types = new Types(context, new ConcurrentHashMap<String, JClass>());
+
+        final List<Resource> resources = new ArrayList<Resource>(raml.getResources().values());
 
-        for (final Resource resource : raml.getResources().values())
+        if (configuration.isStreaming())
         {
-            createResourceInterface(resource);
+            raml.getResources().clear();
+            generateInFragments(resources, raml, configuration);
+        }
+        else if ((configuration.getResourceThreads() == 1) || (resources.size() < 2))
+        {
+            for (final Resource resource : resources)
+            {
+                generateResourceInterface(resource);
+            }
+        }
+        else
+        {
+            generateInFragments(resources, raml, configuration);
+        }
+
+        return context;
+    }
+
+    /**
+     * Generates each top-level resource interface in its own fragment {@link Context}, possibly
+     * concurrently, the generated code being identical to a serial run: resource interface names are
+     * assigned up front and schema classes generated in the same order as a serial run would, then
+     * fragments are merged, or emitted in streaming mode, in resource order.
+     */
+    private void generateInFragments(final List<Resource> resources,
+                                     final Raml raml,
+                                     final Configuration configuration) throws Exception
+    {
+        final List<String> resourceInterfaceNames = new ArrayList<String>();
+        for (final Resource resource : resources)
+        {
+            resourceInterfaceNames.add(context.reserveResourceInterfaceName(Names.buildResourceInterfaceName(
+                resource)));
         }
+        final List<String> placeholderNames = Context.selectPlaceholderNames(resourceInterfaceNames);
+
+        final boolean streaming = configuration.isStreaming();
+        final int threads = Math.min(configuration.getResourceThreads(), resources.size());
+        final ExecutorService executor = threads > 1 ? Executors.newFixedThreadPool(threads,
+            new WorkerThreadFactory("raml-jaxrs-codegen-resource-")) : null;
+
+        try
+        {
+            final LinkedList<Future<Context>> pendingFragments = new LinkedList<Future<Context>>();
+            for (int i = 0; i < resources.size(); i++)
+            {
+                final Resource resource = resources.set(i, null);
+                generateSchemaClasses(resource);
+
+                final Callable<Context> fragmentTask = createFragmentTask(resource,
+                    resourceInterfaceNames.get(i), placeholderNames, raml, configuration);
+                if (executor == null)
+                {
+                    addFragment(fragmentTask.call(), streaming);
+                    continue;
+                }
 
-        return context.generate();
+                // in streaming mode, only as many fragments as threads are kept in memory
+                while (streaming && (pendingFragments.size() >= threads))
+                {
+                    addFragment(getFragment(pendingFragments.removeFirst()), streaming);
+                }
+                pendingFragments.add(executor.submit(fragmentTask));
+            }
+
+            while (!pendingFragments.isEmpty())
+            {
+                addFragment(getFragment(pendingFragments.removeFirst()), streaming);
+            }
+        }
+        finally
+        {
+            if (executor != null)
+            {
+                executor.shutdownNow();
+            }
+        }
+    }
+
+    private Callable<Context> createFragmentTask(final Resource resource,
+                                                 final String resourceInterfaceName,
+                                                 final List<String> placeholderNames,
+                                                 final Raml raml,
+                                                 final Configuration configuration)
+    {
+        return new Callable<Context>()
+        {
+            @Override
+            public Context call() throws Exception
+            {
+                final Generator fragment = createFragmentGenerator();
+                fragment.listener = listener;
+                fragment.context = new Context(configuration, raml, listener);
+                fragment.context.setModelRegistry(modelRegistry);
+                fragment.context.assignResourceInterfaceName(Names.buildResourceInterfaceName(resource),
+                    resourceInterfaceName);
+                fragment.types = new Types(fragment.context, types.getSchemaClasses());
+
+                fragment.generateResourceInterface(resource);
+                fragment.context.declareResourceInterfacePlaceholders(placeholderNames);
+                return fragment.context;
+            }
+        };
+    }
+
+    private static Context getFragment(final Future<Context> fragment) throws Exception
+    {
+        try
+        {
+            return fragment.get();
+        }
+        catch (final ExecutionException ee)
+        {
+            final Throwable cause = ee.getCause();
+            throw cause instanceof Exception ? (Exception) cause : ee;
+        }
+    }
+
+    private void addFragment(final Context fragment, final boolean streaming) throws IOException
+    {
+        if (streaming)
+        {
+            context.emit(fragment);
+        }
+        else
+        {
+            context.merge(fragment);
+        }
+    }
+
+    /**
+     * @return the generator used to create a resource interface when resources are generated
+     *         concurrently. Subclasses customizing the generated code must return an instance of
+     *         themselves.
+     */
+    protected Generator createFragmentGenerator()
+    {
+        return new Generator();
+    }
+
+    /**
+     * Generates the schema classes of a resource in the order {@link #createResourceInterface(Resource)}
+     * would.
+     */
+    private void generateSchemaClasses(final Resource resource) throws Exception
+    {
+        for (final Action action : resource.getActions().values())
+        {
+            if (!action.hasBody())
+            {
+                generateSchemaClasses(action, null);
+            }
+            else
+            {
+                for (final MimeType bodyMimeType : action.getBody().values())
+                {
+                    generateSchemaClasses(action, bodyMimeType);
+                }
+            }
+        }
+
+        for (final Resource childResource : resource.getResources().values())
+        {
+            generateSchemaClasses(childResource);
+        }
+    }
+
+    private void generateSchemaClasses(final Action action, final MimeType bodyMimeType) throws Exception
+    {
+        if (!getUniqueResponseMimeTypes(action).isEmpty())
+        {
+            for (final Response response : action.getResponses().values())
+            {
+                if (response.hasBody())
+                {
+                    for (final MimeType responseMimeType : response.getBody().values())
+                    {
+                        types.getResponseEntityClass(responseMimeType);
+                    }
+                }
+            }
+        }
+
+        if ((bodyMimeType != null) && (!MediaType.APPLICATION_FORM_URLENCODED.equals(bodyMimeType.getType()))
+            && (!MediaType.MULTIPART_FORM_DATA.equals(bodyMimeType.getType())))
+        {
+            types.getRequestEntityClass(bodyMimeType);
+        }
+    }
+
+    private void generateResourceInterface(final Resource resource) throws Exception
+    {
+        listener.phaseStarted(GenerationPhase.RESOURCE_INTERFACE, resource.getUri());
+        try
+        {
+            createResourceInterface(resource);
+        }
+        finally
+        {
+            listener.phaseCompleted(GenerationPhase.RESOURCE_INTERFACE, resource.getUri());
+        }
     }
 
     protected void createResourceInterface(final Resource resource) throws Exception
@@ -264,8 +599,9 @@ public class Generator
 
         // the actually created unique method name should be needed in the previous method but
         // no way of doing this :(
+        final boolean async = context.getConfiguration().isAsyncResourceMethods();
         final JMethod method = context.createResourceMethod(resourceInterface, methodName,
-            resourceMethodReturnType);
+            async ? types.getGeneratorType(void.class) : resourceMethodReturnType);
         
         Configuration contiguration = context.getConfiguration();
         if (contiguration.getMethodThrowException() != null ) {
@@ -284,6 +620,37 @@ public class Generator
         addHeaderParameters(action, method, javadoc);
         addQueryParameters(action, method, javadoc);
         addBodyParameters(bodyMimeType, method, javadoc);
+
+        if (async)
+        {
+            addAsyncResponseArgument(resourceMethodReturnType, method, javadoc);
+        }
+    }
+
+    /**
+     * Adds a suspended JAX-RS 2.0 AsyncResponse argument, which the typed response is resumed with
+     * instead of being returned.
+     */
+    private void addAsyncResponseArgument(final JType responseType,
+                                          final JMethod method,
+                                          final JDocComment javadoc)
+    {
+        final JCodeModel codeModel = responseType.owner();
+        final JVar asyncResponse = method.param(codeModel.directClass(ASYNC_RESPONSE_CLASS_NAME),
+            ASYNC_RESPONSE_ARGUMENT_NAME);
+        asyncResponse.annotate(codeModel.directClass(SUSPENDED_CLASS_NAME));
+
+        if (responseType instanceof JDefinedClass)
+        {
+            javadoc.addParam(asyncResponse)
+                .append("to resume with a ")
+                .append(responseType)
+                .append(" response");
+        }
+        else
+        {
+            javadoc.addParam(asyncResponse).append("to resume once done");
+        }
     }
 
     private JType getResourceMethodReturnType(final String methodName,
@@ -331,13 +698,26 @@ public class Generator
 
         if (!response.hasBody())
         {
-            createResponseBuilderInResourceMethodReturnType(responseClass, statusCode, response, null);
+            createResponseBuilderInResourceMethodReturnType(responseClass, statusCode, response, null, null,
+                false);
         }
         else
         {
             for (final MimeType mimeType : response.getBody().values())
             {
-                createResponseBuilderInResourceMethodReturnType(responseClass, statusCode, response, mimeType);
+                final JType entityType = types.getResponseEntityClass(mimeType);
+                createResponseBuilderInResourceMethodReturnType(responseClass, statusCode, response, mimeType,
+                    entityType, false);
+
+                if (context.getConfiguration().isStreamingResponseBuilders())
+                {
+                    // named apart, so existing calls passing a null entity don't become ambiguous
+                    for (final Class<?> streamingEntityClass : STREAMING_RESPONSE_ENTITY_CLASSES)
+                    {
+                        createResponseBuilderInResourceMethodReturnType(responseClass, statusCode, response,
+                            mimeType, types.getGeneratorType(streamingEntityClass), true);
+                    }
+                }
             }
         }
     }
@@ -345,10 +725,13 @@ public class Generator
     private void createResponseBuilderInResourceMethodReturnType(final JDefinedClass responseClass,
                                                                  final int statusCode,
                                                                  final Response response,
-                                                                 final MimeType responseMimeType)
+                                                                 final MimeType responseMimeType,
+                                                                 final JType entityType,
+                                                                 final boolean streaming)
         throws Exception
     {
-        final String responseBuilderMethodName = Names.buildResponseMethodName(statusCode, responseMimeType);
+        final String responseBuilderMethodName = Names.buildResponseMethodName(statusCode, responseMimeType)
+                                                 + (streaming ? STREAMING_RESPONSE_BUILDER_SUFFIX : "");
 
         final JMethod responseBuilderMethod = responseClass.method(PUBLIC + STATIC, responseClass,
             responseBuilderMethodName);
@@ -371,9 +754,15 @@ public class Generator
 
         if (responseMimeType != null)
         {
-            builderArgument = builderArgument.invoke("header")
-                .arg(HttpHeaders.CONTENT_TYPE)
-                .arg(responseMimeType.getType());
+            // parsed once, instead of on each response
+            final JFieldVar mediaTypeConstant = getMediaTypeConstant((JDefinedClass) responseClass.outer(),
+                responseMimeType.getType());
+
+            builderArgument = mediaTypeConstant != null
+                ? builderArgument.invoke("type").arg(mediaTypeConstant)
+                : builderArgument.invoke("header")
+                    .arg(types.getGeneratorClass(HttpHeaders.class).staticRef("CONTENT_TYPE"))
+                    .arg(responseMimeType.getType());
         }
 
         final StringBuilder freeFormHeadersDescription = new StringBuilder();
@@ -398,6 +787,17 @@ public class Generator
             responseBuilderMethod.param(types.buildParameterType(header, argumentName), argumentName);
         }
 
+        if (isCacheable(responseBuilderMethod, responseMimeType, freeFormHeadersDescription))
+        {
+            final JClass jaxrsResponseClass = types.getGeneratorClass(javax.ws.rs.core.Response.class);
+            final JFieldVar cachedResponse = responseClass.field(PRIVATE + STATIC + FINAL, jaxrsResponseClass,
+                Names.buildConstantName(responseBuilderMethodName), builderArgument.invoke("build"));
+            cachedResponse.javadoc().add("Copied by each call, as callers may change or close the response.");
+            responseBuilderMethod.body()._return(JExpr._new(responseClass).arg(
+                jaxrsResponseClass.staticInvoke("fromResponse").arg(cachedResponse).invoke("build")));
+            return;
+        }
+
         final JBlock responseBuilderMethodBody = responseBuilderMethod.body();
 
         final JVar builderVariable = responseBuilderMethodBody.decl(
@@ -422,16 +822,120 @@ public class Generator
 
         if (responseMimeType != null)
         {
-            responseBuilderMethodBody.invoke(builderVariable, "entity").arg(
-                JExpr.ref(GENERIC_PAYLOAD_ARGUMENT_NAME));
-            responseBuilderMethod.param(types.getResponseEntityClass(responseMimeType),
-                GENERIC_PAYLOAD_ARGUMENT_NAME);
+            final JVar entity = responseBuilderMethod.param(entityType, GENERIC_PAYLOAD_ARGUMENT_NAME);
+            // JAX-RS has no body writer for channels so they're adapted to streams
+            final JExpression entityArgument = types.getGeneratorType(ReadableByteChannel.class).equals(
+                entityType) ? types.getGeneratorClass(Channels.class).staticInvoke("newInputStream").arg(
+                entity) : entity;
+            responseBuilderMethodBody.invoke(builderVariable, "entity").arg(entityArgument);
             javadoc.addParam(GENERIC_PAYLOAD_ARGUMENT_NAME).add(defaultString(responseMimeType.getExample()));
         }
 
         responseBuilderMethodBody._return(JExpr._new(responseClass).arg(builderVariable.invoke("build")));
     }
 
+    /**
+     * @return the constant of the resource interface standing for the provided media type, or null if
+     *         the media type can't be created at generation time.
+     */
+    private JFieldVar getMediaTypeConstant(final JDefinedClass resourceInterface, final String mediaType)
+    {
+        final JExpression mediaTypeExpression = buildMediaTypeExpression(mediaType);
+        if (mediaTypeExpression == null)
+        {
+            LOGGER.warn("Not creating a constant for unsupported media type: " + mediaType);
+            return null;
+        }
+
+        final String baseName = Names.buildMediaTypeConstantName(mediaType);
+
+        String name = baseName;
+        JFieldVar constant;
+        for (int i = 1; (constant = resourceInterface.fields().get(name)) != null; i++)
+        {
+            if (mediaType.equals(mediaTypeConstants.get(constant)))
+            {
+                return constant;
+            }
+            // distinct media types can share a base name, like a/b-c and a/b.c
+            name = baseName + "_" + i;
+        }
+
+        constant = resourceInterface.field(JMod.NONE, MediaType.class, name, mediaTypeExpression);
+        mediaTypeConstants.put(constant, mediaType);
+        return constant;
+    }
+
+    /**
+     * Parses a media type at generation time, as a constant the runtime fails to parse would make
+     * the whole resource interface unusable.
+     *
+     * @return the expression creating the media type, or null if it is invalid or has several
+     *         parameters.
+     */
+    private JExpression buildMediaTypeExpression(final String mediaType)
+    {
+        final String[] typeAndParameters = mediaType.split(";");
+        final String[] typeAndSubtype = typeAndParameters[0].trim().split("/", -1);
+        if ((typeAndParameters.length > 2) || (typeAndSubtype.length != 2) || (!isToken(typeAndSubtype[0]))
+            || (!isToken(typeAndSubtype[1])))
+        {
+            return null;
+        }
+
+        final JInvocation mediaTypeExpression = JExpr._new(types.getGeneratorClass(MediaType.class))
+            .arg(typeAndSubtype[0])
+            .arg(typeAndSubtype[1]);
+
+        if (typeAndParameters.length == 2)
+        {
+            final String parameterName = substringBefore(typeAndParameters[1], "=").trim();
+            String parameterValue = substringAfter(typeAndParameters[1], "=").trim();
+            if ((parameterValue.length() > 1) && parameterValue.startsWith("\"")
+                && parameterValue.endsWith("\""))
+            {
+                parameterValue = parameterValue.substring(1, parameterValue.length() - 1);
+                if (StringUtils.containsAny(parameterValue, "\"\\"))
+                {
+                    return null;
+                }
+            }
+            else if (!isToken(parameterValue))
+            {
+                return null;
+            }
+
+            if (!isToken(parameterName))
+            {
+                return null;
+            }
+
+            mediaTypeExpression.arg(types.getGeneratorClass(Collections.class)
+                .staticInvoke("singletonMap")
+                .arg(parameterName)
+                .arg(parameterValue));
+        }
+
+        return mediaTypeExpression;
+    }
+
+    private static boolean isToken(final String value)
+    {
+        return MEDIA_TYPE_TOKEN.matcher(value).matches();
+    }
+
+    /**
+     * Body-less responses built out of their status only are built once, then copied by each call,
+     * which is cheaper than building them from their status and keeps them from being shared.
+     */
+    private boolean isCacheable(final JMethod responseBuilderMethod,
+                                final MimeType responseMimeType,
+                                final CharSequence freeFormHeadersDescription)
+    {
+        return (responseMimeType == null) && responseBuilderMethod.params().isEmpty()
+               && (freeFormHeadersDescription.length() == 0);
+    }
+
     private JDocComment addBaseJavaDoc(final Action action, final JMethod method)
     {
         final JDocComment javadoc = method.javadoc();
@@ -0,0 +1,342 @@
+/*
+ * Copyright 2013 (c) MuleSoft, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.raml.jaxrs.codegen.core;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.math.BigInteger;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang.StringUtils;
+import org.raml.parser.loader.ResourceLoader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Charsets;
+
+/**
+ * Long-running generator serving generation jobs on a local socket, so jobs don't pay the JVM startup
+ * and warm-up costs and included resources stay loaded between jobs.
+ * <p>
+ * A request is made of lines terminated by an empty line: the secret of the daemon, the command, then
+ * for {@value #GENERATE_COMMAND} the working directory followed by the {@link Launcher} arguments, one
+ * per line. The response lists the failures, one per line, followed by {@value #OK_STATUS} and the
+ * number of generated files, or by {@value #FAILED_STATUS}.
+ * <p>
+ * As jobs run with the rights of the daemon, and can delete files of its output directories, the
+ * daemon only serves the requests made with the random secret it writes, at startup, to a file only
+ * its owner can read.
+ */
+public class GeneratorDaemon
+{
+    public static final int DEFAULT_PORT = 7717;
+
+    static final String GENERATE_COMMAND = "generate";
+    static final String STOP_COMMAND = "stop";
+    static final String OK_STATUS = "OK";
+    static final String FAILED_STATUS = "FAILED";
+    static final String ERROR_PREFIX = "ERROR ";
+
+    // the time a client has to send each part of its request, as requests are served one at a time
+    static final int REQUEST_TIMEOUT_MILLIS = 5000;
+
+    // the number of source directories whose included resources are kept loaded
+    private static final int MAX_RESOURCE_LOADERS = 16;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(GeneratorDaemon.class);
+
+    private final ServerSocket serverSocket;
+    private final File secretFile;
+    private final byte[] secret;
+    private final Map<File, ResourceLoader> resourceLoaders;
+    private int requestTimeout = REQUEST_TIMEOUT_MILLIS;
+
+    /**
+     * @param port the port to listen to on the loopback interface, 0 for any free port.
+     * @param secretFile the file to write the secret of the daemon to, the default secret file of
+     *            the port if null.
+     */
+    public GeneratorDaemon(final int port, final File secretFile) throws IOException
+    {
+        serverSocket = new ServerSocket(port, 0, InetAddress.getByName(null));
+
+        try
+        {
+            this.secretFile = secretFile == null ? getDefaultSecretFile(getPort()) : secretFile;
+            final String secretString = new BigInteger(256, new SecureRandom()).toString(Character.MAX_RADIX);
+            writeSecret(this.secretFile, secretString);
+            secret = secretString.getBytes(Charsets.UTF_8);
+        }
+        catch (final IOException ioe)
+        {
+            IOUtils.closeQuietly(serverSocket);
+            throw ioe;
+        }
+
+        // least recently used source directories are forgotten first
+        resourceLoaders = new LinkedHashMap<File, ResourceLoader>(MAX_RESOURCE_LOADERS, 0.75f, true)
+        {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(final Entry<File, ResourceLoader> eldest)
+            {
+                return size() > MAX_RESOURCE_LOADERS;
+            }
+        };
+    }
+
+    public GeneratorDaemon(final int port) throws IOException
+    {
+        this(port, null);
+    }
+
+    public static void main(final String[] args) throws IOException
+    {
+        final Map<String, String> argMap = Launcher.createArgMap(args);
+        final String port = argMap.get("port");
+        final String secretFile = argMap.get("secretFile");
+
+        final GeneratorDaemon daemon = new GeneratorDaemon(
+            port == null ? DEFAULT_PORT : Integer.parseInt(port), secretFile == null ? null : new File(
+                secretFile));
+        LOGGER.info("Generator daemon listening on port: " + daemon.getPort() + ", secret file: "
+                    + daemon.getSecretFile());
+        daemon.run();
+    }
+
+    /**
+     * @return the file the daemon listening to the provided port writes its secret to by default.
+     */
+    public static File getDefaultSecretFile(final int port)
+    {
+        return new File(System.getProperty("user.home"), ".raml-jaxrs-codegen/daemon-" + port + ".secret");
+    }
+
+    public int getPort()
+    {
+        return serverSocket.getLocalPort();
+    }
+
+    public File getSecretFile()
+    {
+        return secretFile;
+    }
+
+    /**
+     * @param requestTimeout the milliseconds after which a client not sending its request is
+     *            disconnected, so it can't prevent other clients from being served.
+     */
+    void setRequestTimeout(final int requestTimeout)
+    {
+        this.requestTimeout = requestTimeout;
+    }
+
+    /**
+     * Serves requests, one at a time, until a {@value #STOP_COMMAND} request is received or the daemon
+     * is closed.
+     */
+    public void run() throws IOException
+    {
+        try
+        {
+            while (!serverSocket.isClosed())
+            {
+                final Socket socket;
+                try
+                {
+                    socket = serverSocket.accept();
+                }
+                catch (final SocketException se)
+                {
+                    // closed while waiting for a request
+                    return;
+                }
+
+                try
+                {
+                    socket.setSoTimeout(requestTimeout);
+                    serve(socket);
+                }
+                catch (final SocketTimeoutException ste)
+                {
+                    LOGGER.warn("Disconnected client not sending its request within: " + requestTimeout
+                                + "ms");
+                }
+                catch (final IOException ioe)
+                {
+                    LOGGER.warn("Failed to serve request", ioe);
+                }
+                finally
+                {
+                    IOUtils.closeQuietly(socket);
+                }
+            }
+        }
+        finally
+        {
+            close();
+        }
+    }
+
+    public void close()
+    {
+        IOUtils.closeQuietly(serverSocket);
+        FileUtils.deleteQuietly(secretFile);
+    }
+
+    private static void writeSecret(final File secretFile, final String secret) throws IOException
+    {
+        final File directory = secretFile.getAbsoluteFile().getParentFile();
+        if ((!directory.isDirectory()) && (!directory.mkdirs()))
+        {
+            throw new IOException("Failed to create directory: " + directory);
+        }
+
+        // restricted before the secret is written to it
+        FileUtils.deleteQuietly(secretFile);
+        if ((!secretFile.createNewFile()) || (!restrictToOwner(secretFile)))
+        {
+            throw new IOException("Failed to create a secret file only its owner can read: " + secretFile);
+        }
+        FileUtils.writeStringToFile(secretFile, secret, Charsets.UTF_8.name());
+    }
+
+    private static boolean restrictToOwner(final File file)
+    {
+        final boolean restricted = file.setReadable(false, false) && file.setReadable(true, true)
+                                   && file.setWritable(false, false) && file.setWritable(true, true);
+
+        // the permissions of all users can't be changed on Windows, where home directories are private
+        return restricted || (File.separatorChar == '\\');
+    }
+
+    private boolean isAuthorized(final String requestSecret)
+    {
+        // compared in constant time so the secret can't be guessed out of response times
+        return MessageDigest.isEqual(secret, requestSecret.getBytes(Charsets.UTF_8));
+    }
+
+    private void serve(final Socket socket) throws IOException
+    {
+        final BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(),
+            Charsets.UTF_8));
+        final List<String> request = new ArrayList<String>();
+        String line;
+        while (((line = reader.readLine()) != null) && (!line.isEmpty()))
+        {
+            request.add(line);
+        }
+
+        final PrintWriter writer = new PrintWriter(new OutputStreamWriter(socket.getOutputStream(),
+            Charsets.UTF_8));
+
+        if (request.size() < 2)
+        {
+            writer.println(ERROR_PREFIX + "incomplete request");
+            writer.println(FAILED_STATUS);
+        }
+        else if (!isAuthorized(request.get(0)))
+        {
+            LOGGER.warn("Rejected request made without the daemon secret");
+            writer.println(ERROR_PREFIX + "unauthorized request");
+            writer.println(FAILED_STATUS);
+        }
+        else if (STOP_COMMAND.equals(request.get(1)))
+        {
+            writer.println(OK_STATUS);
+            close();
+        }
+        else if ((GENERATE_COMMAND.equals(request.get(1))) && (request.size() > 2))
+        {
+            generate(new File(request.get(2)), request.subList(3, request.size()), writer);
+        }
+        else
+        {
+            writer.println(ERROR_PREFIX + "unsupported request: " + request.get(1));
+            writer.println(FAILED_STATUS);
+        }
+
+        writer.flush();
+    }
+
+    private void generate(final File workingDirectory, final List<String> args, final PrintWriter writer)
+    {
+        try
+        {
+            final Map<String, String> argMap = Launcher.createArgMap(args.toArray(new String[args.size()]));
+            final Configuration configuration = Launcher.createConfiguration(argMap, workingDirectory);
+
+            final Set<String> generatedFiles = Launcher.run(argMap, configuration, workingDirectory,
+                getResourceLoader(configuration));
+
+            writer.println(OK_STATUS + " " + generatedFiles.size());
+        }
+        catch (final BatchGenerationException bge)
+        {
+            for (final Map.Entry<File, Throwable> failure : bge.getFailures().entrySet())
+            {
+                LOGGER.error("Error generating Java classes from: " + failure.getKey(), failure.getValue());
+                writer.println(ERROR_PREFIX + failure.getKey() + ": " + toLine(failure.getValue()));
+            }
+            writer.println(FAILED_STATUS);
+        }
+        catch (final Exception e)
+        {
+            LOGGER.error("Error generating Java classes", e);
+            writer.println(ERROR_PREFIX + toLine(e));
+            writer.println(FAILED_STATUS);
+        }
+    }
+
+    private static String toLine(final Throwable throwable)
+    {
+        return StringUtils.replaceChars(throwable.toString(), "\r\n", "  ");
+    }
+
+    private ResourceLoader getResourceLoader(final Configuration configuration)
+    {
+        // the launcher always resolves the source directory against the working directory
+        final File sourceDirectory = configuration.getSourceDirectory();
+
+        ResourceLoader resourceLoader = resourceLoaders.get(sourceDirectory);
+        if (resourceLoader == null)
+        {
+            resourceLoader = new ReloadingResourceLoader(sourceDirectory,
+                Generator.createResourceLoader(configuration));
+            resourceLoaders.put(sourceDirectory, resourceLoader);
+        }
+        return resourceLoader;
+    }
+}
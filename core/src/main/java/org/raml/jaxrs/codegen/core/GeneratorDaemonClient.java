@@ -0,0 +1,146 @@
+/*
+ * Copyright 2013 (c) MuleSoft, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.raml.jaxrs.codegen.core;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+
+import com.google.common.base.Charsets;
+
+/**
+ * Submits a generation job to a running {@link GeneratorDaemon}. It takes the same arguments as the
+ * {@link Launcher}, plus an optional <code>-daemonPort</code> and <code>-daemonSecretFile</code>, the
+ * default secret file of the port otherwise, and exits with a non-zero status if the job failed.
+ * <code>-stopDaemon</code> stops the daemon instead.
+ */
+public class GeneratorDaemonClient
+{
+    private static final String DAEMON_PORT_ARGUMENT = "-daemonPort";
+    private static final String DAEMON_SECRET_FILE_ARGUMENT = "-daemonSecretFile";
+    private static final String STOP_DAEMON_ARGUMENT = "-stopDaemon";
+
+    public static void main(final String[] args) throws IOException
+    {
+        int port = GeneratorDaemon.DEFAULT_PORT;
+        File secretFile = null;
+        boolean stopDaemon = false;
+        final List<String> launcherArgs = new ArrayList<String>();
+
+        for (int i = 0; i < args.length; i++)
+        {
+            if ((DAEMON_PORT_ARGUMENT.equals(args[i])) && (i + 1 < args.length))
+            {
+                port = Integer.parseInt(args[++i]);
+            }
+            else if ((DAEMON_SECRET_FILE_ARGUMENT.equals(args[i])) && (i + 1 < args.length))
+            {
+                secretFile = new File(args[++i]);
+            }
+            else if (STOP_DAEMON_ARGUMENT.equals(args[i]))
+            {
+                stopDaemon = true;
+            }
+            else
+            {
+                launcherArgs.add(args[i]);
+            }
+        }
+
+        if (secretFile == null)
+        {
+            secretFile = GeneratorDaemon.getDefaultSecretFile(port);
+        }
+
+        final List<String> response = stopDaemon ? stop(port, secretFile) : generate(port, secretFile,
+            new File(System.getProperty("user.dir")), launcherArgs);
+
+        for (final String line : response)
+        {
+            System.out.println(line);
+        }
+
+        if ((response.isEmpty()) || (!response.get(response.size() - 1).startsWith(GeneratorDaemon.OK_STATUS)))
+        {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * @return the response of the daemon, one entry per line.
+     */
+    public static List<String> generate(final int port,
+                                        final File secretFile,
+                                        final File workingDirectory,
+                                        final List<String> args) throws IOException
+    {
+        final List<String> request = new ArrayList<String>();
+        request.add(GeneratorDaemon.GENERATE_COMMAND);
+        request.add(workingDirectory.getAbsolutePath());
+        request.addAll(args);
+        return submit(port, secretFile, request);
+    }
+
+    public static List<String> stop(final int port, final File secretFile) throws IOException
+    {
+        return submit(port, secretFile, Arrays.asList(GeneratorDaemon.STOP_COMMAND));
+    }
+
+    private static List<String> submit(final int port, final File secretFile, final List<String> request)
+        throws IOException
+    {
+        final String secret = FileUtils.readFileToString(secretFile, Charsets.UTF_8.name()).trim();
+
+        final Socket socket = new Socket(InetAddress.getByName(null), port);
+        try
+        {
+            final PrintWriter writer = new PrintWriter(new OutputStreamWriter(socket.getOutputStream(),
+                Charsets.UTF_8));
+            writer.println(secret);
+            for (final String line : request)
+            {
+                writer.println(line);
+            }
+            writer.println();
+            writer.flush();
+
+            final BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(),
+                Charsets.UTF_8));
+            final List<String> response = new ArrayList<String>();
+            String line;
+            while ((line = reader.readLine()) != null)
+            {
+                response.add(line);
+            }
+            return response;
+        }
+        finally
+        {
+            IOUtils.closeQuietly(socket);
+        }
+    }
+}
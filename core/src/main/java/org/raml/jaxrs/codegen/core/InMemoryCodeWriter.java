@@ -0,0 +1,61 @@
+/*
+ * Copyright 2013 (c) MuleSoft, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.raml.jaxrs.codegen.core;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.apache.commons.io.output.ByteArrayOutputStream;
+
+import com.sun.codemodel.CodeWriter;
+import com.sun.codemodel.JPackage;
+
+/**
+ * Keeps the files of a code model in memory, keyed by their path relative to an output directory,
+ * using '/' as separator.
+ */
+class InMemoryCodeWriter extends CodeWriter
+{
+    private final Map<String, byte[]> files = new TreeMap<String, byte[]>();
+
+    @Override
+    public OutputStream openBinary(final JPackage pkg, final String fileName)
+    {
+        final String path = pkg.isUnnamed() ? fileName : pkg.name().replace('.', '/') + "/" + fileName;
+        return new ByteArrayOutputStream()
+        {
+            @Override
+            public void close() throws IOException
+            {
+                super.close();
+                files.put(path, toByteArray());
+            }
+        };
+    }
+
+    @Override
+    public void close()
+    {
+        // nothing to close
+    }
+
+    public Map<String, byte[]> getFiles()
+    {
+        return files;
+    }
+}
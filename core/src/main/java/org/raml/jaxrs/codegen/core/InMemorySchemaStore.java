@@ -0,0 +1,258 @@
+/*
+ * Copyright 2013 (c) MuleSoft, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.raml.jaxrs.codegen.core;
+
+import java.io.ByteArrayInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.MalformedURLException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.net.URLStreamHandler;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.lang.Validate;
+import org.jsonschema2pojo.FragmentResolver;
+import org.jsonschema2pojo.Schema;
+import org.jsonschema2pojo.SchemaStore;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.base.Charsets;
+
+/**
+ * A {@link SchemaStore} serving the schemas of a RAML definition from memory, under a dedicated
+ * URL scheme, so they don't have to be written to disk for jsonschema2pojo to read them back.
+ * Relative references between these schemas are resolved by name, any other reference is
+ * resolved as usual.
+ */
+class InMemorySchemaStore extends SchemaStore
+{
+    static final String SCHEME = "raml-schema";
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private final Map<String, String> schemaContents;
+    private final Map<URI, Schema> schemas;
+    private final FragmentResolver fragmentResolver;
+    private final URLStreamHandler urlStreamHandler;
+    private final Set<String> resolvedSchemaNames;
+    private boolean externalSchemaResolved;
+
+    public InMemorySchemaStore()
+    {
+        schemaContents = new HashMap<String, String>();
+        schemas = new HashMap<URI, Schema>();
+        fragmentResolver = new FragmentResolver();
+        urlStreamHandler = new InMemoryUrlStreamHandler();
+        resolvedSchemaNames = new TreeSet<String>();
+    }
+
+    /**
+     * @return a store serving the same schemas, which hasn't resolved any yet.
+     */
+    public synchronized InMemorySchemaStore copy()
+    {
+        final InMemorySchemaStore copy = new InMemorySchemaStore();
+        copy.schemaContents.putAll(schemaContents);
+        return copy;
+    }
+
+    /**
+     * Registers a schema, replacing any schema previously registered with the same name.
+     *
+     * @return the URL jsonschema2pojo can read the schema from.
+     */
+    public synchronized URL addSchema(final String name, final String content)
+    {
+        Validate.notEmpty(name, "name can't be empty");
+        Validate.notNull(content, "content can't be null");
+
+        final URI id = toUri(name);
+        final String baseId = id.toString();
+
+        // schemas resolved from a previous content are stale, while keeping the ones resolved from
+        // the same content lets jsonschema2pojo reuse the types it already generated for them
+        if (!content.equals(schemaContents.put(name, content)))
+        {
+            for (final URI cachedId : schemas.keySet().toArray(new URI[schemas.size()]))
+            {
+                if (StringUtils.substringBefore(cachedId.toString(), "#").equals(baseId))
+                {
+                    schemas.remove(cachedId);
+                }
+            }
+        }
+
+        try
+        {
+            return new URL(null, baseId, urlStreamHandler);
+        }
+        catch (final MalformedURLException murle)
+        {
+            throw new IllegalArgumentException("Invalid schema name: " + name, murle);
+        }
+    }
+
+    /**
+     * @return the content of the schema registered with this name, or null if there is none.
+     */
+    public synchronized String getSchemaContent(final String name)
+    {
+        return schemaContents.get(name);
+    }
+
+    /**
+     * @return the names of all the schemas of this store resolved so far.
+     */
+    public synchronized Set<String> getResolvedSchemaNames()
+    {
+        return new TreeSet<String>(resolvedSchemaNames);
+    }
+
+    /**
+     * @return true if a schema not part of this store, like a file or a remote schema, has been
+     *         resolved.
+     */
+    public synchronized boolean isExternalSchemaResolved()
+    {
+        return externalSchemaResolved;
+    }
+
+    @Override
+    public synchronized Schema create(final URI id)
+    {
+        if (!SCHEME.equals(id.getScheme()))
+        {
+            externalSchemaResolved = true;
+            return super.create(id);
+        }
+
+        final String name = getName(id);
+        resolvedSchemaNames.add(name);
+
+        Schema schema = schemas.get(id);
+        if (schema == null)
+        {
+            final String content = schemaContents.get(name);
+            if (content == null)
+            {
+                throw new IllegalArgumentException("Unknown schema: " + name);
+            }
+
+            JsonNode schemaNode;
+            try
+            {
+                schemaNode = OBJECT_MAPPER.readTree(content);
+            }
+            catch (final IOException ioe)
+            {
+                throw new IllegalArgumentException("Error parsing schema: " + name, ioe);
+            }
+
+            if (id.getFragment() != null)
+            {
+                schemaNode = fragmentResolver.resolve(schemaNode, '#' + id.getFragment());
+            }
+
+            schema = new Schema(id, schemaNode);
+            schemas.put(id, schema);
+        }
+
+        return schema;
+    }
+
+    @Override
+    public synchronized void clearCache()
+    {
+        super.clearCache();
+        schemas.clear();
+    }
+
+    private static URI toUri(final String name)
+    {
+        try
+        {
+            return new URI(SCHEME, null, "/" + name, null);
+        }
+        catch (final URISyntaxException urise)
+        {
+            throw new IllegalArgumentException("Invalid schema name: " + name, urise);
+        }
+    }
+
+    /**
+     * @return the name of the schema served at this URL.
+     */
+    public static String getSchemaName(final URL url)
+    {
+        try
+        {
+            return getName(url.toURI());
+        }
+        catch (final URISyntaxException urise)
+        {
+            throw new IllegalArgumentException("Invalid schema URL: " + url, urise);
+        }
+    }
+
+    private static String getName(final URI id)
+    {
+        return StringUtils.removeStart(id.getPath(), "/");
+    }
+
+    private class InMemoryUrlStreamHandler extends URLStreamHandler
+    {
+        @Override
+        protected URLConnection openConnection(final URL url) throws IOException
+        {
+            final String name = getSchemaName(url);
+
+            final String content;
+            synchronized (InMemorySchemaStore.this)
+            {
+                content = schemaContents.get(name);
+            }
+
+            if (content == null)
+            {
+                throw new FileNotFoundException("Unknown schema: " + name);
+            }
+
+            return new URLConnection(url)
+            {
+                @Override
+                public void connect()
+                {
+                    connected = true;
+                }
+
+                @Override
+                public InputStream getInputStream()
+                {
+                    return new ByteArrayInputStream(content.getBytes(Charsets.UTF_8));
+                }
+            };
+        }
+    }
+}
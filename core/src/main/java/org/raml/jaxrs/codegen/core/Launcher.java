@@ -16,26 +16,155 @@
 package org.raml.jaxrs.codegen.core;
 
 import java.io.File;
-import java.io.FileNotFoundException;
-import java.io.FileReader;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang.StringUtils;
 import org.jsonschema2pojo.AnnotationStyle;
 import org.raml.jaxrs.codegen.core.Configuration.JaxrsVersion;
+import org.raml.parser.loader.ResourceLoader;
 
 public class Launcher {
 
+	// the options which can be passed without a value, meaning true
+	private static final Set<String> BOOLEAN_OPTIONS = new HashSet<String>(Arrays.asList("watch", "incremental",
+			"removeOldOutput", "useJsr303Annotations", "streaming", "asyncResourceMethods",
+			"streamingResponseBuilders", "streamingRequestBodies", "shareSchemaModels"));
+
 	public static void main(String[] args) {
 		
 		Map<String,String> argMap = createArgMap(args);
+		File rootDirectory = new File(System.getProperty("user.dir"));
+		
+		Configuration configuration = createConfiguration(argMap, rootDirectory);
+		
+		if(Boolean.parseBoolean(argMap.get("watch"))){
+			try {
+				watch(argMap, configuration, rootDirectory);
+			} catch (Exception e) {
+				e.printStackTrace();
+			}
+			return;
+		}
+		
+		try {
+			run(argMap, configuration, rootDirectory, null);
+		} catch (BatchGenerationException e) {
+			printFailures(e);
+		}
+	}
+
+	/**
+	 * Generates the RAML files, then regenerates them incrementally every time files change in the
+	 * source directory, or RAML files listed outside of it change, until interrupted. The process and the included resources are kept warm
+	 * between regenerations, and the manifest of the incremental mode tells which RAML files are
+	 * affected by a change, directly or through their includes.
+	 */
+	static void watch(Map<String, String> argMap, Configuration configuration, File rootDirectory)
+			throws Exception {
+		
+		File sourceDirectory = configuration.getSourceDirectory();
+		long quietPeriod = 300L;
+		String watchDebounceStringValue = argMap.get("watchDebounce");
+		if(watchDebounceStringValue!=null){
+			quietPeriod = Long.parseLong(watchDebounceStringValue);
+		}
+		
+		Map<String, String> initialArgMap = new HashMap<String, String>(argMap);
+		initialArgMap.put("incremental", "true");
+		// only the initial run may clean the output, the manifest then prunes stale files
+		Map<String, String> watchArgMap = new HashMap<String, String>(initialArgMap);
+		watchArgMap.remove("removeOldOutput");
+		
+		ResourceLoader resourceLoader = new ReloadingResourceLoader(sourceDirectory,
+				Generator.createResourceLoader(configuration));
+		SourceDirectoryWatcher watcher = new SourceDirectoryWatcher(sourceDirectory, 100L, quietPeriod);
+		for (File ramlFile : getRamlFiles(argMap, rootDirectory)) {
+			watcher.watchFile(ramlFile);
+		}
+		
+		regenerate(initialArgMap, configuration, rootDirectory, resourceLoader);
+		System.out.println("Watching for changes in: " + sourceDirectory);
+		while (true) {
+			Set<File> changes;
+			try {
+				changes = watcher.awaitChanges();
+			} catch (InterruptedException e) {
+				// stopped while waiting for changes
+				Thread.currentThread().interrupt();
+				return;
+			}
+			if (!changes.isEmpty()) {
+				regenerate(watchArgMap, configuration, rootDirectory, resourceLoader);
+			}
+		}
+	}
+
+	private static void regenerate(Map<String, String> argMap, Configuration configuration, File rootDirectory,
+			ResourceLoader resourceLoader) {
+		
+		GenerationMetrics metrics = new GenerationMetrics();
+		long start = System.nanoTime();
+		String status = "";
+		try {
+			run(argMap, configuration, rootDirectory, resourceLoader, metrics);
+		} catch (BatchGenerationException e) {
+			printFailures(e);
+			status = ", " + e.getFailures().size() + " failed";
+		} catch (RuntimeException e) {
+			e.printStackTrace();
+			status = ", failed";
+		}
+		
+		// every RAML file actually generated, as opposed to skipped, has been validated
+		int ramlFiles = 0;
+		for (GenerationMetrics.Sample sample : metrics.getSamples()) {
+			if (sample.getPhase() == GenerationPhase.VALIDATION) {
+				ramlFiles++;
+			}
+		}
+		System.out.println(String.format(
+				"Regenerated %d RAML file(s), %d Java file(s) in %d ms (validation %d ms, parsing %d ms, build %d ms)%s",
+				ramlFiles, metrics.getFileCount(), (System.nanoTime() - start) / 1000000L,
+				metrics.getWallTime(GenerationPhase.VALIDATION) / 1000000L,
+				metrics.getWallTime(GenerationPhase.PARSING) / 1000000L,
+				metrics.getWallTime(GenerationPhase.CODE_MODEL_BUILD) / 1000000L, status));
+	}
+
+	private static void printFailures(BatchGenerationException e) {
 		
-		Configuration configuration = createConfiguration(argMap);
+		for (Map.Entry<File, Throwable> failure : e.getFailures().entrySet()) {
+			System.err.println("Error generating Java classes from: " + failure.getKey());
+			failure.getValue().printStackTrace();
+		}
+	}
+
+	/**
+	 * Generates the RAML files designated by the arguments, relative paths being resolved against the
+	 * provided root directory.
+	 * 
+	 * @param resourceLoader the loader to resolve included resources with, or null for the default one.
+	 */
+	static Set<String> run(Map<String, String> argMap, Configuration configuration, File rootDirectory,
+			ResourceLoader resourceLoader) throws BatchGenerationException {
+		
+		return run(argMap, configuration, rootDirectory, resourceLoader, null);
+	}
+
+	/**
+	 * @param listener an additional listener notified of the progress of all the RAML files, or null.
+	 */
+	static Set<String> run(Map<String, String> argMap, Configuration configuration, File rootDirectory,
+			ResourceLoader resourceLoader, GenerationListener listener) throws BatchGenerationException {
 		
 		boolean removeOldOutput = false;		
 		String removeOldOutputStringValue = argMap.get("removeOldOutput");
@@ -43,33 +172,59 @@ public class Launcher {
 			removeOldOutput = Boolean.parseBoolean(removeOldOutputStringValue);
 		}
 		
-		Collection<File> ramlFiles = getRamlFiles(argMap);
+		Collection<File> ramlFiles = getRamlFiles(argMap, rootDirectory);
 		if(ramlFiles.isEmpty()){
-			return;
+			return Collections.emptySet();
 		}
 		
 		if (removeOldOutput)
         {
+			System.err.println(
+					"removeOldOutput is deprecated: the files RAML files don't produce anymore are deleted anyway");
 			try {
 				FileUtils.cleanDirectory(configuration.getOutputDirectory());
 			} catch (IOException e) {
 				e.printStackTrace();
 			}            
         }
-		final Generator generator = new Generator();
-		for (final File ramlFile : ramlFiles)
-        {
-            try {
-				generator.run(new FileReader(ramlFile), configuration);
-			} catch (FileNotFoundException e) {
-				e.printStackTrace();
-			} catch (Exception e) {
-				e.printStackTrace();
+		int threads = 1;
+		String threadsStringValue = argMap.get("threads");
+		if(threadsStringValue!=null){
+			threads = Integer.parseInt(threadsStringValue);
+		}
+		
+		boolean incremental = false;
+		String incrementalStringValue = argMap.get("incremental");
+		if(incrementalStringValue!=null){
+			incremental = Boolean.parseBoolean(incrementalStringValue);
+		}
+		
+		GenerationMetrics metrics = new GenerationMetrics();
+		
+		BatchGenerator batchGenerator = new BatchGenerator(threads);
+		batchGenerator.setIncremental(incremental);
+		batchGenerator.setResourceLoader(resourceLoader);
+		batchGenerator.addListener(metrics);
+		if(listener!=null){
+			batchGenerator.addListener(listener);
+		}
+		try {
+			return batchGenerator.run(ramlFiles, configuration);
+		} finally {
+			String metricsReportPath = argMap.get("metricsReport");
+			if(!isEmptyString(metricsReportPath)){
+				File metricsReport = resolve(rootDirectory, metricsReportPath);
+				try {
+					metrics.writeReport(metricsReport);
+				} catch (IOException e) {
+					System.err.println("Failed to write metrics report: " + metricsReport);
+					e.printStackTrace();
+				}
 			}
-        }
+		}
 	}
 
-	private static Collection<File> getRamlFiles(Map<String, String> argMap) {
+	private static Collection<File> getRamlFiles(Map<String, String> argMap, File rootDirectory) {
 		
 		String sourcePaths = argMap.get("sourcePaths");
 		String sourceDirectoryPath = argMap.get("sourceDirectory");
@@ -78,12 +233,12 @@ public class Launcher {
 			List<File> sourceFiles = new ArrayList<File>();
 			String[] split = sourcePaths.split(System.getProperty("path.separator"));            
             for(String str : split){
-            	sourceFiles.add(new File(str));
+            	sourceFiles.add(resolve(rootDirectory, str));
             }
             return sourceFiles;
 		}
 		else{
-			File sourceDirectory = new File(sourceDirectoryPath);
+			File sourceDirectory = resolve(rootDirectory, sourceDirectoryPath);
 			if (!sourceDirectory.isDirectory()) {
                 throw new RuntimeException("The provided path doesn't refer to a valid directory: "+ sourceDirectory);
             }
@@ -91,11 +246,10 @@ public class Launcher {
         }
 	}
 
-	private static Configuration createConfiguration(Map<String, String> argMap) {
+	static Configuration createConfiguration(Map<String, String> argMap, File rootDirectory) {
 		
 		Configuration configuration = new Configuration();
 		
-		File rootDirectory = new File(System.getProperty("user.dir"));
 		File outputDirectory = new File(rootDirectory,"generated-sources/raml-jaxrs");
 		File sourceDirectory = new File(rootDirectory,"src/main/raml");
 		
@@ -103,6 +257,13 @@ public class Launcher {
 		String jaxrsVersion = "1.1";
 		boolean useJsr303Annotations = false;		
 		String jsonMapper = "jackson1";
+		File modelCacheDirectory = null;
+		int resourceThreads = 1;
+		boolean streaming = false;
+		boolean asyncResourceMethods = false;
+		boolean streamingResponseBuilders = false;
+		boolean streamingRequestBodies = false;
+		boolean shareSchemaModels = false;
 		
 		
 		for( Map.Entry<String,String> entry : argMap.entrySet() ){
@@ -111,10 +272,10 @@ public class Launcher {
 			String argValue = entry.getValue();
 			
 			if(argName.equals("outputDirectory")){				
-				outputDirectory = new File(argValue);
+				outputDirectory = resolve(rootDirectory, argValue);
 			}
 			else if(argName.equals("sourceDirectory")){
-				sourceDirectory = new File(argValue);
+				sourceDirectory = resolve(rootDirectory, argValue);
 			}
 			else if(argName.equals("jaxrsVersion")){
 				jaxrsVersion = argValue;
@@ -128,6 +289,27 @@ public class Launcher {
 			else if(argName.equals("jsonMapper")){
 				jsonMapper = argValue;
 			}
+			else if(argName.equals("modelCacheDirectory")){
+				modelCacheDirectory = resolve(rootDirectory, argValue);
+			}
+			else if(argName.equals("resourceThreads")){
+				resourceThreads = Integer.parseInt(argValue);
+			}
+			else if(argName.equals("streaming")){
+				streaming = Boolean.parseBoolean(argValue);
+			}
+			else if(argName.equals("asyncResourceMethods")){
+				asyncResourceMethods = Boolean.parseBoolean(argValue);
+			}
+			else if(argName.equals("streamingResponseBuilders")){
+				streamingResponseBuilders = Boolean.parseBoolean(argValue);
+			}
+			else if(argName.equals("streamingRequestBodies")){
+				streamingRequestBodies = Boolean.parseBoolean(argValue);
+			}
+			else if(argName.equals("shareSchemaModels")){
+				shareSchemaModels = Boolean.parseBoolean(argValue);
+			}
 		}
 		if(basePackageName==null){
 			throw new RuntimeException("Base package must be specified.");
@@ -142,31 +324,47 @@ public class Launcher {
         configuration.setUseJsr303Annotations(useJsr303Annotations);
         configuration.setJsonMapper(AnnotationStyle.valueOf(jsonMapper.toUpperCase()));
         configuration.setSourceDirectory(sourceDirectory);
+        configuration.setModelCacheDirectory(modelCacheDirectory);
+        configuration.setResourceThreads(resourceThreads);
+        configuration.setStreaming(streaming);
+        configuration.setAsyncResourceMethods(asyncResourceMethods);
+        configuration.setStreamingResponseBuilders(streamingResponseBuilders);
+        configuration.setStreamingRequestBodies(streamingRequestBodies);
+        configuration.setShareSchemaModels(shareSchemaModels);
         
         return configuration;
 	}
 
-	private static Map<String, String> createArgMap(String[] args) {
+	static Map<String, String> createArgMap(String[] args) {
 		
 		HashMap<String,String> map = new HashMap<String, String>(); 
 		for(int i = 0 ; i < args.length ; i++ ){
 					
 			String argName = args[i];
 			if(argName.startsWith("-")){
-				argName = argName.substring(1);			
-				if(i+1 < args.length)
-				{
-					String argValue = args[i+1];
-					if(!argValue.startsWith("-")){					
-						map.put(argName, argValue);
-						i++;
-					}
+				argName = StringUtils.stripStart(argName, "-");
+				if(i+1 < args.length && !args[i+1].startsWith("-")){
+					map.put(argName, args[i+1]);
+					i++;
+				}
+				else if(BOOLEAN_OPTIONS.contains(argName)){
+					// a flag, like --watch
+					map.put(argName, "true");
+				}
+				else{
+					throw new RuntimeException("Missing value of option: " + args[i]);
 				}
 			}
 		}
 		return map;
 	}
 
+	private static File resolve(File rootDirectory, String path) {
+		
+		File file = new File(path);
+		return file.isAbsolute() ? file : new File(rootDirectory, path);
+	}
+
 	private static boolean isEmptyString(String str) {		
 		
 		return str == null || str.trim().isEmpty();
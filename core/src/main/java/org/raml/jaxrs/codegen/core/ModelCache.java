@@ -0,0 +1,247 @@
+/*
+ * Copyright 2013 (c) MuleSoft, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.raml.jaxrs.codegen.core;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.TreeMap;
+import java.util.UUID;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang.Validate;
+import org.jsonschema2pojo.GenerationConfig;
+import org.jsonschema2pojo.SchemaMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.common.base.Charsets;
+
+/**
+ * An on-disk cache of the sources jsonschema2pojo generates for a schema, shared by builds and
+ * modules. Entries are keyed by a digest of the schema and of all the settings that influence the
+ * generated sources, and record the digests of the other schemas the schema refers to, so they're
+ * ignored once any of these changed.
+ */
+class ModelCache
+{
+    private static final int VERSION = 1;
+
+    private static final String ENTRY_EXTENSION = ".json";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ModelCache.class);
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private final File directory;
+
+    public ModelCache(final File directory)
+    {
+        Validate.notNull(directory, "directory can't be null");
+
+        this.directory = directory;
+    }
+
+    public static String buildKey(final GenerationConfig generationConfig,
+                                  final String packageName,
+                                  final String className,
+                                  final String schemaName,
+                                  final String schemaContent)
+    {
+        final StringBuilder key = new StringBuilder();
+        key.append("version=").append(VERSION);
+        key.append(";jsonschema2pojo=").append(SchemaMapper.class.getPackage().getImplementationVersion());
+        appendSettings(key, generationConfig, packageName);
+        key.append(";class=").append(className);
+        key.append(";schemaName=").append(schemaName);
+        key.append(";schema=").append(schemaContent);
+
+        return RecordingResourceLoader.digest(key.toString().getBytes(Charsets.UTF_8));
+    }
+
+    /**
+     * Appends all the settings that influence the sources generated for a schema to a key.
+     */
+    static StringBuilder appendSettings(final StringBuilder key,
+                                        final GenerationConfig generationConfig,
+                                        final String packageName)
+    {
+        key.append(";annotationStyle=").append(generationConfig.getAnnotationStyle());
+        key.append(";customAnnotator=").append(generationConfig.getCustomAnnotator());
+        key.append(";includeJsr303Annotations=").append(generationConfig.isIncludeJsr303Annotations());
+        key.append(";generateBuilders=").append(generationConfig.isGenerateBuilders());
+        key.append(";includeHashcodeAndEquals=").append(generationConfig.isIncludeHashcodeAndEquals());
+        key.append(";includeToString=").append(generationConfig.isIncludeToString());
+        key.append(";usePrimitives=").append(generationConfig.isUsePrimitives());
+        key.append(";useLongIntegers=").append(generationConfig.isUseLongIntegers());
+        key.append(";useDoubleNumbers=").append(generationConfig.isUseDoubleNumbers());
+        key.append(";useJodaDates=").append(generationConfig.isUseJodaDates());
+        key.append(";useCommonsLang3=").append(generationConfig.isUseCommonsLang3());
+        key.append(";initializeCollections=").append(generationConfig.isInitializeCollections());
+        key.append(";propertyWordDelimiters=").append(
+            Arrays.toString(generationConfig.getPropertyWordDelimiters()));
+        key.append(";sourceType=").append(generationConfig.getSourceType());
+        key.append(";package=").append(packageName);
+
+        return key;
+    }
+
+    /**
+     * @return the cached entry, or null if there is none or it can't be read.
+     */
+    public CachedModel get(final String key)
+    {
+        final File entryFile = getEntryFile(key);
+        if (!entryFile.isFile())
+        {
+            return null;
+        }
+
+        try
+        {
+            final JsonNode json = OBJECT_MAPPER.readTree(entryFile);
+            if (json.path("version").asInt() != VERSION)
+            {
+                return null;
+            }
+
+            final Map<String, String> dependencies = new TreeMap<String, String>();
+            final Iterator<Entry<String, JsonNode>> dependencyFields = json.path("dependencies").fields();
+            while (dependencyFields.hasNext())
+            {
+                final Entry<String, JsonNode> dependency = dependencyFields.next();
+                dependencies.put(dependency.getKey(), dependency.getValue().asText());
+            }
+
+            final Map<String, byte[]> sources = new TreeMap<String, byte[]>();
+            final Iterator<Entry<String, JsonNode>> sourceFields = json.path("sources").fields();
+            while (sourceFields.hasNext())
+            {
+                final Entry<String, JsonNode> source = sourceFields.next();
+                sources.put(source.getKey(), source.getValue().binaryValue());
+            }
+
+            return new CachedModel(json.path("type").asText(), dependencies, sources);
+        }
+        catch (final Exception e)
+        {
+            LOGGER.warn("Ignoring unreadable model cache entry: " + entryFile, e);
+            return null;
+        }
+    }
+
+    /**
+     * Stores an entry, replacing any previous one. Failures are only logged, as the cache is merely
+     * an optimization.
+     */
+    public void put(final String key, final CachedModel cachedModel)
+    {
+        final ObjectNode json = OBJECT_MAPPER.createObjectNode();
+        json.put("version", VERSION);
+        json.put("type", cachedModel.getTypeName());
+
+        final ObjectNode dependencies = json.putObject("dependencies");
+        for (final Entry<String, String> dependency : cachedModel.getDependencies().entrySet())
+        {
+            dependencies.put(dependency.getKey(), dependency.getValue());
+        }
+
+        final ObjectNode sources = json.putObject("sources");
+        for (final Entry<String, byte[]> source : cachedModel.getSources().entrySet())
+        {
+            sources.put(source.getKey(), source.getValue());
+        }
+
+        // write aside then rename, so concurrent builds never read a partially written entry
+        final File entryFile = getEntryFile(key);
+        final File temporaryFile = new File(directory, key + "." + UUID.randomUUID() + ".tmp");
+        try
+        {
+            FileUtils.forceMkdir(directory);
+            OBJECT_MAPPER.writeValue(temporaryFile, json);
+
+            if (!temporaryFile.renameTo(entryFile))
+            {
+                FileUtils.deleteQuietly(entryFile);
+                if (!temporaryFile.renameTo(entryFile))
+                {
+                    throw new IOException("Failed to rename " + temporaryFile + " to " + entryFile);
+                }
+            }
+        }
+        catch (final IOException ioe)
+        {
+            LOGGER.warn("Failed to store model cache entry: " + entryFile, ioe);
+        }
+        finally
+        {
+            FileUtils.deleteQuietly(temporaryFile);
+        }
+    }
+
+    private File getEntryFile(final String key)
+    {
+        return new File(directory, key + ENTRY_EXTENSION);
+    }
+
+    /**
+     * The sources generated for a schema.
+     */
+    static class CachedModel
+    {
+        private final String typeName;
+        private final Map<String, String> dependencies;
+        private final Map<String, byte[]> sources;
+
+        /**
+         * @param typeName the name of the type generated for the schema itself.
+         * @param dependencies the digests of the schemas used to generate the sources, keyed by name,
+         *            or null if they include schemas not part of the RAML file.
+         * @param sources the generated sources, keyed by path relative to the output directory.
+         */
+        public CachedModel(final String typeName,
+                           final Map<String, String> dependencies,
+                           final Map<String, byte[]> sources)
+        {
+            this.typeName = typeName;
+            this.dependencies = dependencies == null ? null : Collections.unmodifiableMap(
+                new TreeMap<String, String>(dependencies));
+            this.sources = Collections.unmodifiableMap(new TreeMap<String, byte[]>(sources));
+        }
+
+        public String getTypeName()
+        {
+            return typeName;
+        }
+
+        public Map<String, String> getDependencies()
+        {
+            return dependencies;
+        }
+
+        public Map<String, byte[]> getSources()
+        {
+            return sources;
+        }
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright 2013 (c) MuleSoft, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.raml.jaxrs.codegen.core;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+
+import org.jsonschema2pojo.GenerationConfig;
+import org.raml.jaxrs.codegen.core.ModelCache.CachedModel;
+
+import com.google.common.base.Charsets;
+
+/**
+ * The model classes generated from JSON schemas during a build, shared by all the RAML files of the
+ * build so a schema several files define under the same name is only mapped once. Models are keyed
+ * by the class name, the canonical digest of the schema and the settings that influence the generated
+ * sources: schemas defined under different names are never merged, so the generated class names don't
+ * depend on the order the files are generated in. Thread safe.
+ */
+public class ModelRegistry
+{
+    private final ConcurrentMap<String, Future<RegisteredModel>> models =
+        new ConcurrentHashMap<String, Future<RegisteredModel>>();
+
+    public static String buildKey(final GenerationConfig generationConfig,
+                                  final String packageName,
+                                  final String className,
+                                  final String schemaContent)
+    {
+        final StringBuilder key = ModelCache.appendSettings(new StringBuilder(), generationConfig,
+            packageName);
+        key.append(";className=").append(className);
+        key.append(";schema=").append(SchemaDigests.digest(schemaContent));
+
+        return RecordingResourceLoader.digest(key.toString().getBytes(Charsets.UTF_8));
+    }
+
+    /**
+     * @return the model registered with this key or, if there is none, the one the mapper produces,
+     *         which is then registered. Concurrent callers asking for the same key wait for the first
+     *         one to be done instead of mapping the schema again.
+     */
+    RegisteredModel get(final String key, final Callable<RegisteredModel> mapper) throws IOException
+    {
+        final FutureTask<RegisteredModel> mapping = new FutureTask<RegisteredModel>(mapper);
+        Future<RegisteredModel> model = models.putIfAbsent(key, mapping);
+        if (model == null)
+        {
+            model = mapping;
+            mapping.run();
+        }
+
+        try
+        {
+            return model.get();
+        }
+        catch (final InterruptedException ie)
+        {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for schema mapping");
+        }
+        catch (final ExecutionException ee)
+        {
+            // failures aren't registered, so the next caller tries again
+            models.remove(key, model);
+
+            final Throwable cause = ee.getCause();
+            if (cause instanceof IOException)
+            {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException)
+            {
+                throw (RuntimeException) cause;
+            }
+            throw new IllegalStateException("Failed to map schema", cause);
+        }
+    }
+
+    /**
+     * @return the number of distinct schemas mapped so far.
+     */
+    public int size()
+    {
+        return models.size();
+    }
+
+    /**
+     * A model along with the name of the schema it was generated from.
+     */
+    static class RegisteredModel
+    {
+        private final String schemaName;
+        private final CachedModel model;
+
+        RegisteredModel(final String schemaName, final CachedModel model)
+        {
+            this.schemaName = schemaName;
+            this.model = model;
+        }
+
+        public String getSchemaName()
+        {
+            return schemaName;
+        }
+
+        public CachedModel getModel()
+        {
+            return model;
+        }
+    }
+}
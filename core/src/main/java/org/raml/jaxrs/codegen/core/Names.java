@@ -34,6 +34,7 @@ public class Names
 {
     public static final String GENERIC_PAYLOAD_ARGUMENT_NAME = "entity";
     public static final String MULTIPLE_RESPONSE_HEADERS_ARGUMENT_NAME = "headers";
+    public static final String ASYNC_RESPONSE_ARGUMENT_NAME = "asyncResponse";
     public static final String EXAMPLE_PREFIX = " e.g. ";
 
     public static String buildResourceInterfaceName(final Resource resource)
@@ -51,6 +52,18 @@ public class Names
         return Constants.JAVA_KEYWORDS.contains(name) ? "$" + name : name;
     }
 
+    public static String buildConstantName(final String variableName)
+    {
+        return StringUtils.join(StringUtils.splitByCharacterTypeCamelCase(variableName), '_').toUpperCase(
+            DEFAULT_LOCALE);
+    }
+
+    public static String buildMediaTypeConstantName(final String mediaType)
+    {
+        return StringUtils.strip(mediaType.replace("*", "wildcard").replaceAll("\\W+", "_"), "_").toUpperCase(
+            DEFAULT_LOCALE) + "_TYPE";
+    }
+
     public static String buildJavaFriendlyName(final String source)
     {
         final String baseName = source.replaceAll("[\\W_]", " ");
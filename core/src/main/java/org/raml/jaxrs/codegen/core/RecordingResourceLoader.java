@@ -0,0 +1,96 @@
+/*
+ * Copyright 2013 (c) MuleSoft, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.raml.jaxrs.codegen.core;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang.Validate;
+import org.raml.parser.loader.ResourceLoader;
+
+import com.google.common.hash.Hashing;
+
+/**
+ * Remembers a content digest of every resource fetched through it, ie. of everything a RAML file
+ * includes.
+ */
+class RecordingResourceLoader implements ResourceLoader
+{
+    private final ResourceLoader delegate;
+    private final Map<String, String> resourceDigests;
+
+    public RecordingResourceLoader(final ResourceLoader delegate)
+    {
+        Validate.notNull(delegate, "delegate can't be null");
+
+        this.delegate = delegate;
+
+        resourceDigests = new TreeMap<String, String>();
+    }
+
+    @Override
+    public synchronized InputStream fetchResource(final String resourceName)
+    {
+        final byte[] content = fetchContent(delegate, resourceName);
+        if (content == null)
+        {
+            return null;
+        }
+
+        resourceDigests.put(resourceName, digest(content));
+        return new ByteArrayInputStream(content);
+    }
+
+    /**
+     * @return the digests of all the resources fetched so far, keyed by resource name.
+     */
+    public synchronized Map<String, String> getResourceDigests()
+    {
+        return Collections.unmodifiableMap(new TreeMap<String, String>(resourceDigests));
+    }
+
+    static byte[] fetchContent(final ResourceLoader resourceLoader, final String resourceName)
+    {
+        final InputStream inputStream = resourceLoader.fetchResource(resourceName);
+        if (inputStream == null)
+        {
+            return null;
+        }
+
+        try
+        {
+            return IOUtils.toByteArray(inputStream);
+        }
+        catch (final IOException ioe)
+        {
+            return null;
+        }
+        finally
+        {
+            IOUtils.closeQuietly(inputStream);
+        }
+    }
+
+    static String digest(final byte[] content)
+    {
+        return Hashing.sha256().hashBytes(content).toString();
+    }
+}
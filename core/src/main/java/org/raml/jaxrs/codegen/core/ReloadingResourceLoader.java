@@ -0,0 +1,129 @@
+/*
+ * Copyright 2013 (c) MuleSoft, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.raml.jaxrs.codegen.core;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.commons.lang.Validate;
+import org.raml.parser.loader.ResourceLoader;
+
+/**
+ * Keeps the content of the resources found in a source directory across generation runs, reloading a
+ * resource only once its file has been modified. Resources not found in the source directory are
+ * fetched again every time, unless kept for the lifetime of the loader.
+ */
+class ReloadingResourceLoader implements ResourceLoader
+{
+    private final File sourceDirectory;
+    private final ResourceLoader delegate;
+    private final boolean keepingOtherResources;
+    private final Map<String, CachedResource> cachedResources;
+
+    public ReloadingResourceLoader(final File sourceDirectory, final ResourceLoader delegate)
+    {
+        this(sourceDirectory, delegate, false);
+    }
+
+    /**
+     * @param keepingOtherResources whether to keep the resources not found in the source directory,
+     *            like URLs and class path resources, for the lifetime of this loader. Suits a single
+     *            build but not a long-lived process, as nothing tells when these resources change.
+     */
+    public ReloadingResourceLoader(final File sourceDirectory,
+                                   final ResourceLoader delegate,
+                                   final boolean keepingOtherResources)
+    {
+        Validate.notNull(delegate, "delegate can't be null");
+
+        this.sourceDirectory = sourceDirectory;
+        this.delegate = delegate;
+        this.keepingOtherResources = keepingOtherResources;
+
+        cachedResources = new HashMap<String, CachedResource>();
+    }
+
+    @Override
+    public synchronized InputStream fetchResource(final String resourceName)
+    {
+        final File file = sourceDirectory == null ? null : new File(sourceDirectory, resourceName);
+        if ((file == null) || (!file.isFile()))
+        {
+            return fetchOtherResource(resourceName);
+        }
+
+        final long lastModified = file.lastModified();
+        final long length = file.length();
+
+        CachedResource cachedResource = cachedResources.get(resourceName);
+        if ((cachedResource == null) || (cachedResource.lastModified != lastModified)
+            || (cachedResource.length != length))
+        {
+            final byte[] content = RecordingResourceLoader.fetchContent(delegate, resourceName);
+            if (content == null)
+            {
+                cachedResources.remove(resourceName);
+                return null;
+            }
+            cachedResource = new CachedResource(lastModified, length, content);
+            cachedResources.put(resourceName, cachedResource);
+        }
+
+        return new ByteArrayInputStream(cachedResource.content);
+    }
+
+    private InputStream fetchOtherResource(final String resourceName)
+    {
+        if (!keepingOtherResources)
+        {
+            cachedResources.remove(resourceName);
+            return delegate.fetchResource(resourceName);
+        }
+
+        // resources that are not files are never stale
+        CachedResource cachedResource = cachedResources.get(resourceName);
+        if ((cachedResource == null) || (cachedResource.lastModified != -1L))
+        {
+            final byte[] content = RecordingResourceLoader.fetchContent(delegate, resourceName);
+            if (content == null)
+            {
+                cachedResources.remove(resourceName);
+                return null;
+            }
+            cachedResource = new CachedResource(-1L, -1L, content);
+            cachedResources.put(resourceName, cachedResource);
+        }
+
+        return new ByteArrayInputStream(cachedResource.content);
+    }
+
+    private static class CachedResource
+    {
+        private final long lastModified;
+        private final long length;
+        private final byte[] content;
+
+        private CachedResource(final long lastModified, final long length, final byte[] content)
+        {
+            this.lastModified = lastModified;
+            this.length = length;
+            this.content = content;
+        }
+    }
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright 2013 (c) MuleSoft, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.raml.jaxrs.codegen.core;
+
+import java.io.IOException;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.google.common.base.Charsets;
+
+/**
+ * Digests of schema contents that only depend on what the schemas define: JSON schemas are
+ * canonicalized first, so whitespace and the order of object keys don't matter.
+ */
+final class SchemaDigests
+{
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper().configure(
+        SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS, true);
+
+    private SchemaDigests()
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * @return the digest of the canonical form of the schema, or of its trimmed content if it is not
+     *         JSON.
+     */
+    public static String digest(final String schemaContent)
+    {
+        return RecordingResourceLoader.digest(canonicalize(schemaContent));
+    }
+
+    private static byte[] canonicalize(final String schemaContent)
+    {
+        try
+        {
+            // maps are written with sorted keys whatever their nesting
+            return OBJECT_MAPPER.writeValueAsBytes(OBJECT_MAPPER.readValue(schemaContent, Object.class));
+        }
+        catch (final IOException ioe)
+        {
+            return schemaContent.trim().getBytes(Charsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright 2013 (c) MuleSoft, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.raml.jaxrs.codegen.core;
+
+import java.io.File;
+import java.io.FileFilter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.apache.commons.io.filefilter.HiddenFileFilter;
+import org.apache.commons.io.filefilter.NameFileFilter;
+import org.apache.commons.io.monitor.FileAlterationListener;
+import org.apache.commons.io.monitor.FileAlterationListenerAdaptor;
+import org.apache.commons.io.monitor.FileAlterationObserver;
+import org.apache.commons.lang.Validate;
+
+/**
+ * Polls a source directory, recursively, and possibly files outside of it, for files being created,
+ * modified or deleted. Hidden files, like the ones editors write while saving, are ignored.
+ */
+class SourceDirectoryWatcher
+{
+    private final File sourceDirectory;
+    private final List<FileAlterationObserver> observers;
+    private final FileAlterationListener listener;
+    private final long pollInterval;
+    private final long quietPeriod;
+    private final Set<File> changedFiles;
+    private boolean changing;
+
+    /**
+     * @param pollInterval the time between two polls, in milliseconds.
+     * @param quietPeriod the time without further changes after which changes are reported, in
+     *            milliseconds, so a burst of changes is only reported once.
+     */
+    public SourceDirectoryWatcher(final File sourceDirectory, final long pollInterval, final long quietPeriod)
+        throws Exception
+    {
+        Validate.notNull(sourceDirectory, "sourceDirectory can't be null");
+        Validate.isTrue(pollInterval > 0, "pollInterval must be greater than zero");
+
+        this.sourceDirectory = sourceDirectory.getCanonicalFile();
+        this.pollInterval = pollInterval;
+        this.quietPeriod = quietPeriod;
+
+        changedFiles = new TreeSet<File>();
+        observers = new ArrayList<FileAlterationObserver>();
+
+        listener = new FileAlterationListenerAdaptor()
+        {
+            @Override
+            public void onFileCreate(final File file)
+            {
+                fileChanged(file);
+            }
+
+            @Override
+            public void onFileChange(final File file)
+            {
+                fileChanged(file);
+            }
+
+            @Override
+            public void onFileDelete(final File file)
+            {
+                fileChanged(file);
+            }
+        };
+        observe(sourceDirectory, HiddenFileFilter.VISIBLE);
+    }
+
+    /**
+     * Also polls a file, like a RAML file listed apart from the source directory, if it is outside of
+     * the source directory.
+     */
+    public void watchFile(final File file) throws Exception
+    {
+        final File canonicalFile = file.getCanonicalFile();
+        for (File parent = canonicalFile.getParentFile(); parent != null; parent = parent.getParentFile())
+        {
+            if (parent.equals(sourceDirectory))
+            {
+                return;
+            }
+        }
+
+        // only the file itself, not the other files of its directory
+        observe(canonicalFile.getParentFile(), new NameFileFilter(canonicalFile.getName()));
+    }
+
+    private void observe(final File directory, final FileFilter fileFilter) throws Exception
+    {
+        final FileAlterationObserver observer = new FileAlterationObserver(directory, fileFilter);
+        observer.addListener(listener);
+        observer.initialize();
+        observers.add(observer);
+    }
+
+    private void fileChanged(final File file)
+    {
+        changedFiles.add(file);
+        changing = true;
+    }
+
+    /**
+     * Blocks until some files changed and no further change happened during the quiet period.
+     *
+     * @return the changed files, never empty.
+     */
+    public Set<File> awaitChanges() throws InterruptedException
+    {
+        long lastChange = 0L;
+        while (true)
+        {
+            Thread.sleep(pollInterval);
+
+            changing = false;
+            for (final FileAlterationObserver observer : observers)
+            {
+                observer.checkAndNotify();
+            }
+            final long now = System.currentTimeMillis();
+
+            if (changing)
+            {
+                lastChange = now;
+            }
+            else if ((!changedFiles.isEmpty()) && (now - lastChange >= quietPeriod))
+            {
+                final Set<File> changes = new TreeSet<File>(changedFiles);
+                changedFiles.clear();
+                return changes;
+            }
+        }
+    }
+}
@@ -21,6 +21,7 @@ import static javax.ws.rs.core.MediaType.TEXT_XML;
 import static org.apache.commons.lang.StringUtils.defaultIfBlank;
 import static org.apache.commons.lang.StringUtils.isBlank;
 import static org.apache.commons.lang.StringUtils.isNotBlank;
+import static org.apache.commons.lang.StringUtils.left;
 import static org.apache.commons.lang.StringUtils.startsWith;
 import static org.apache.commons.lang.StringUtils.substringAfter;
 import static org.apache.commons.lang.StringUtils.substringAfterLast;
@@ -34,6 +35,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.Reader;
 import java.math.BigDecimal;
+import java.net.URL;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
@@ -60,12 +62,26 @@ public class Types
     private final Map<String, JClass> schemaClasses;
 
     public Types(final Context context)
+    {
+        this(context, new HashMap<String, JClass>());
+    }
+
+    /**
+     * @param schemaClasses the classes already generated for schemas, possibly by another context,
+     *            keyed by schema key. Classes generated for new schemas are added to it.
+     */
+    Types(final Context context, final Map<String, JClass> schemaClasses)
     {
         Validate.notNull(context, "context can't be null");
+        Validate.notNull(schemaClasses, "schemaClasses can't be null");
 
         this.context = context;
+        this.schemaClasses = schemaClasses;
+    }
 
-        schemaClasses = new HashMap<String, JClass>();
+    Map<String, JClass> getSchemaClasses()
+    {
+        return schemaClasses;
     }
 
     public JType buildParameterType(final AbstractParam parameter, final String name) throws Exception
@@ -96,6 +112,11 @@ public class Types
         {
             return schemaClass;
         }
+        else if (context.getConfiguration().isStreamingRequestBodies())
+        {
+            // read incrementally by the resource method instead of being buffered beforehand
+            return getGeneratorType(startsWith(mimeType.getType(), "text/") ? Reader.class : InputStream.class);
+        }
         else if (startsWith(mimeType.getType(), "text/"))
         {
             return getGeneratorType(String.class);
@@ -153,7 +174,7 @@ public class Types
         final JClass existingClass = schemaClasses.get(buildSchemaKey);
         if (existingClass != null)
         {
-            return existingClass;
+            return context.importClass(existingClass);
         }
 
         if (isCompatibleWith(mimeType, APPLICATION_XML, TEXT_XML))
@@ -163,15 +184,12 @@ public class Types
         }
         else if (isCompatibleWith(mimeType, APPLICATION_JSON))
         {
-            final Entry<File, String> schemaNameAndFile = context.getSchemaFile(schemaNameOrContent);
-            if (isBlank(schemaNameAndFile.getValue()))
-            {
-                schemaNameAndFile.setValue(buildNestedSchemaName(mimeType));
-            }
-
-            final String className = buildJavaFriendlyName(schemaNameAndFile.getValue());
+            final Entry<URL, String> schemaNameAndUrl = context.getSchemaUrl(schemaNameOrContent);
+            final String className = isBlank(schemaNameAndUrl.getValue())
+                ? buildNestedSchemaClassName(mimeType)
+                : buildJavaFriendlyName(schemaNameAndUrl.getValue());
             final JClass generatedClass = context.generateClassFromJsonSchema(className,
-                schemaNameAndFile.getKey().toURI().toURL());
+                schemaNameAndUrl.getKey());
             schemaClasses.put(buildSchemaKey, generatedClass);
             return generatedClass;
         }
@@ -181,6 +199,35 @@ public class Types
         }
     }
 
+    /**
+     * @return the name of the class of an inline schema, which derives from the hash code of the
+     *         schema so is suffixed by the start of its digest if another schema already has a class
+     *         of that name. The model cache and registry map each schema in a code model of its own,
+     *         where the JSON schema mapper can't make the name unique.
+     */
+    private String buildNestedSchemaClassName(final MimeType mimeType)
+    {
+        final String className = buildJavaFriendlyName(buildNestedSchemaName(mimeType));
+        if (!isSchemaClassName(className))
+        {
+            return className;
+        }
+
+        return className + "Sha" + left(SchemaDigests.digest(mimeType.getSchema()), 8);
+    }
+
+    private boolean isSchemaClassName(final String className)
+    {
+        for (final JClass schemaClass : schemaClasses.values())
+        {
+            if (className.equals(schemaClass.name()))
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
     private boolean isCompatibleWith(final MimeType mt, final String... mediaTypes)
     {
         final String mimeType = mt.getType();
@@ -214,9 +261,13 @@ public class Types
         return false;
     }
 
+    /**
+     * @return a key identifying the schema of a MIME type whatever its formatting, as two schemas
+     *         with the same key share the same class.
+     */
     private String buildSchemaKey(final MimeType mimeType)
     {
-        return Names.getShortMimeType(mimeType) + "@" + mimeType.getSchema().hashCode();
+        return Names.getShortMimeType(mimeType) + "@" + SchemaDigests.digest(mimeType.getSchema());
     }
 
     private static Class<?> getJavaType(final AbstractParam parameter)
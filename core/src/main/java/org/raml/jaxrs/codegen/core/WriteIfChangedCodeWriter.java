@@ -0,0 +1,116 @@
+/*
+ * Copyright 2013 (c) MuleSoft, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.raml.jaxrs.codegen.core;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.FilenameUtils;
+import org.apache.commons.io.output.ByteArrayOutputStream;
+import org.apache.commons.lang.Validate;
+
+import com.sun.codemodel.CodeWriter;
+import com.sun.codemodel.JPackage;
+
+/**
+ * Writes the files of a code model in a directory, leaving alone the files whose content didn't
+ * change so their modification time is preserved and incremental compilers don't process them
+ * again.
+ */
+class WriteIfChangedCodeWriter extends CodeWriter
+{
+    private final File outputDirectory;
+    private final Set<String> files;
+    private final Set<String> writtenFiles;
+
+    public WriteIfChangedCodeWriter(final File outputDirectory)
+    {
+        Validate.notNull(outputDirectory, "outputDirectory can't be null");
+
+        this.outputDirectory = outputDirectory;
+
+        files = new TreeSet<String>();
+        writtenFiles = new TreeSet<String>();
+    }
+
+    @Override
+    public OutputStream openBinary(final JPackage pkg, final String fileName)
+    {
+        final String path = pkg.isUnnamed() ? fileName : pkg.name().replace('.', '/') + '/' + fileName;
+        return new ByteArrayOutputStream()
+        {
+            @Override
+            public void close() throws IOException
+            {
+                super.close();
+                if (writeIfChanged(new File(outputDirectory, FilenameUtils.separatorsToSystem(path)),
+                    toByteArray()))
+                {
+                    writtenFiles.add(path);
+                }
+                files.add(path);
+            }
+        };
+    }
+
+    @Override
+    public void close()
+    {
+        // every file is written as soon as it is closed
+    }
+
+    /**
+     * @return the paths of all the files of the code model, written or not, relative to the output
+     *         directory and with '/' as separator.
+     */
+    public Set<String> getFiles()
+    {
+        return Collections.unmodifiableSet(files);
+    }
+
+    /**
+     * @return the paths of the files of the code model actually written, relative to the output
+     *         directory and with '/' as separator.
+     */
+    public Set<String> getWrittenFiles()
+    {
+        return Collections.unmodifiableSet(writtenFiles);
+    }
+
+    /**
+     * Writes a file unless it already has the provided content.
+     *
+     * @return true if the file has been written.
+     */
+    public static boolean writeIfChanged(final File file, final byte[] content) throws IOException
+    {
+        // comparing lengths first spares reading files that obviously changed
+        if ((file.isFile()) && (file.length() == content.length)
+            && (Arrays.equals(FileUtils.readFileToByteArray(file), content)))
+        {
+            return false;
+        }
+
+        FileUtils.writeByteArrayToFile(file, content);
+        return true;
+    }
+}
@@ -0,0 +1,281 @@
+/*
+ * Copyright 2013 (c) MuleSoft, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.raml.jaxrs.codegen.core;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class BatchGeneratorTestCase
+{
+    private static final String TEST_BASE_PACKAGE = "org.raml.jaxrs.test";
+
+    @Rule
+    public TemporaryFolder serialOutputFolder = new TemporaryFolder();
+
+    @Rule
+    public TemporaryFolder concurrentOutputFolder = new TemporaryFolder();
+
+    @Rule
+    public TemporaryFolder sourceFolder = new TemporaryFolder();
+
+    @Test
+    public void concurrentGenerationMatchesSerialGeneration() throws Exception
+    {
+        final List<File> ramlFiles = Arrays.asList(getTestFile("/org/raml/rules/resource-full-ok.yaml"),
+            getTestFile("/org/raml/rules/resource-with-description-ok.yaml"),
+            getTestFile("/org/raml/rules/resource-with-uri.yaml"),
+            getTestFile("/org/raml/params/param-types-with-repeat.yaml"));
+
+        final Set<String> serialFiles = new BatchGenerator().run(ramlFiles,
+            createConfiguration(serialOutputFolder.getRoot()));
+        final Set<String> concurrentFiles = new BatchGenerator(4).run(ramlFiles,
+            createConfiguration(concurrentOutputFolder.getRoot()));
+
+        assertThat(serialFiles.isEmpty(), is(false));
+        assertThat(concurrentFiles, is(equalTo(serialFiles)));
+
+        for (final String generatedFile : serialFiles)
+        {
+            assertThat(generatedFile,
+                FileUtils.readFileToString(new File(concurrentOutputFolder.getRoot(), generatedFile)),
+                is(equalTo(FileUtils.readFileToString(new File(serialOutputFolder.getRoot(), generatedFile)))));
+        }
+    }
+
+    @Test
+    public void failuresAreReportedInSourceOrder() throws Exception
+    {
+        final File firstInvalid = sourceFolder.newFile("first-invalid.raml");
+        FileUtils.writeStringToFile(firstInvalid, "#%RAML 0.8\n---\nversion: v1\n");
+        final File secondInvalid = sourceFolder.newFile("second-invalid.raml");
+        FileUtils.writeStringToFile(secondInvalid, "#%RAML 0.8\n---\nversion: v2\n");
+
+        final List<File> ramlFiles = Arrays.asList(firstInvalid,
+            getTestFile("/org/raml/rules/resource-with-uri.yaml"), secondInvalid);
+
+        try
+        {
+            new BatchGenerator(3).run(ramlFiles, createConfiguration(concurrentOutputFolder.getRoot()));
+            fail("Invalid RAML files should have been reported");
+        }
+        catch (final BatchGenerationException bge)
+        {
+            assertThat(bge.getFailures().keySet(), contains(firstInvalid, secondInvalid));
+            assertThat(concurrentOutputFolder.getRoot().list().length, is(not(0)));
+        }
+    }
+
+    @Test
+    public void incrementalGenerationSkipsUnchangedSourcesAndPrunesStaleFiles() throws Exception
+    {
+        final File ramlFile = sourceFolder.newFile("api.raml");
+        FileUtils.writeStringToFile(ramlFile, "#%RAML 0.8\n---\ntitle: Test\n/things: !include things.yaml\n");
+        final File includedFile = sourceFolder.newFile("things.yaml");
+        FileUtils.writeStringToFile(includedFile, "displayName: Things\nget:\n");
+
+        final Configuration configuration = createConfiguration(concurrentOutputFolder.getRoot());
+        configuration.setSourceDirectory(sourceFolder.getRoot());
+
+        final BatchGenerator batchGenerator = new BatchGenerator();
+        batchGenerator.setIncremental(true);
+
+        final File thingsResource = new File(concurrentOutputFolder.getRoot(),
+            "org/raml/jaxrs/test/resource/Things.java");
+        final File stuffResource = new File(concurrentOutputFolder.getRoot(),
+            "org/raml/jaxrs/test/resource/Stuff.java");
+
+        batchGenerator.run(Arrays.asList(ramlFile), configuration);
+        assertThat(thingsResource.isFile(), is(true));
+        assertThat(thingsResource.setLastModified(1000L), is(true));
+
+        // nothing changed: the RAML file must not be generated again
+        batchGenerator.run(Arrays.asList(ramlFile), configuration);
+        assertThat(thingsResource.lastModified(), is(1000L));
+
+        // an included resource changed: the RAML file is generated again and stale files pruned
+        FileUtils.writeStringToFile(includedFile, "displayName: Stuff\nget:\n");
+        batchGenerator.run(Arrays.asList(ramlFile), configuration);
+        assertThat(stuffResource.isFile(), is(true));
+        assertThat(thingsResource.exists(), is(false));
+    }
+
+    @Test
+    public void filesNotProducedAnymoreArePruned() throws Exception
+    {
+        final File ramlFile = sourceFolder.newFile("api.raml");
+        FileUtils.writeStringToFile(ramlFile, "#%RAML 0.8\n---\ntitle: Test\n/things:\n  get:\n/others:\n  get:\n");
+        final File otherRamlFile = sourceFolder.newFile("other.raml");
+        FileUtils.writeStringToFile(otherRamlFile, "#%RAML 0.8\n---\ntitle: Other\n/misc:\n  get:\n");
+
+        final Configuration configuration = createConfiguration(concurrentOutputFolder.getRoot());
+        final File thingsResource = new File(concurrentOutputFolder.getRoot(),
+            "org/raml/jaxrs/test/resource/Things.java");
+        final File othersResource = new File(concurrentOutputFolder.getRoot(),
+            "org/raml/jaxrs/test/resource/Others.java");
+        final File miscResource = new File(concurrentOutputFolder.getRoot(),
+            "org/raml/jaxrs/test/resource/Misc.java");
+
+        new BatchGenerator().run(Arrays.asList(ramlFile, otherRamlFile), configuration);
+        assertThat(othersResource.setLastModified(1000L), is(true));
+
+        // RAML files generated apart keep their files
+        FileUtils.writeStringToFile(ramlFile, "#%RAML 0.8\n---\ntitle: Test\n/stuff:\n  get:\n/others:\n  get:\n");
+        new BatchGenerator().run(Arrays.asList(ramlFile), configuration);
+        assertThat(thingsResource.exists(), is(false));
+        assertThat(othersResource.lastModified(), is(1000L));
+        assertThat(miscResource.isFile(), is(true));
+
+        // unless they are deleted
+        assertThat(otherRamlFile.delete(), is(true));
+        new BatchGenerator().run(Arrays.asList(ramlFile), configuration);
+        assertThat(miscResource.exists(), is(false));
+        assertThat(othersResource.lastModified(), is(1000L));
+    }
+
+    @Test
+    public void filesOutsideOfTheOutputDirectoryAreNeverPruned() throws Exception
+    {
+        final File ramlFile = sourceFolder.newFile("api.raml");
+        FileUtils.writeStringToFile(ramlFile, "#%RAML 0.8\n---\ntitle: Test\n/things:\n  get:\n");
+        final File relativeVictim = sourceFolder.newFile("relative.txt");
+        final File absoluteVictim = sourceFolder.newFile("absolute.txt");
+
+        // as recorded for a RAML file that was deleted since
+        FileUtils.writeStringToFile(new File(concurrentOutputFolder.getRoot(), GenerationManifest.FILE_NAME),
+            "{\"version\": 1, \"sources\": {\"" + new File(sourceFolder.getRoot(), "gone.raml").toURI().getPath()
+                            + "\": {\"files\": [\"../" + sourceFolder.getRoot().getName()
+                            + "/relative.txt\", \"" + absoluteVictim.toURI().getPath() + "\"]}}}");
+
+        new BatchGenerator().run(Arrays.asList(ramlFile), createConfiguration(concurrentOutputFolder.getRoot()));
+        assertThat(relativeVictim.isFile(), is(true));
+        assertThat(absoluteVictim.isFile(), is(true));
+    }
+
+    @Test
+    public void generatedFilesAreRecordedWithPortableSeparators() throws Exception
+    {
+        final File ramlFile = sourceFolder.newFile("api.raml");
+        FileUtils.writeStringToFile(ramlFile, "#%RAML 0.8\n---\ntitle: Test\n/things:\n  get:\n");
+
+        final Configuration configuration = createConfiguration(concurrentOutputFolder.getRoot());
+        final BatchGenerator batchGenerator = new BatchGenerator();
+        batchGenerator.setIncremental(true);
+
+        final Set<String> generatedFiles = batchGenerator.run(Arrays.asList(ramlFile), configuration);
+        assertThat(generatedFiles, hasItem("org/raml/jaxrs/test/resource/Things.java"));
+
+        // as recorded by previous versions on Windows
+        final File manifestFile = new File(concurrentOutputFolder.getRoot(), GenerationManifest.FILE_NAME);
+        final StringBuffer manifest = new StringBuffer();
+        final Matcher generatedFile = Pattern.compile("\"org/[^\"]+\"").matcher(
+            FileUtils.readFileToString(manifestFile));
+        while (generatedFile.find())
+        {
+            generatedFile.appendReplacement(manifest,
+                Matcher.quoteReplacement(generatedFile.group().replace("/", "\\\\")));
+        }
+        generatedFile.appendTail(manifest);
+        FileUtils.writeStringToFile(manifestFile, manifest.toString());
+
+        // the RAML file is still up to date
+        final GenerationMetrics metrics = new GenerationMetrics();
+        batchGenerator.addListener(metrics);
+        assertThat(batchGenerator.run(Arrays.asList(ramlFile), configuration), is(equalTo(generatedFiles)));
+        assertThat(metrics.getFileCount(), is(0));
+    }
+
+    @Test
+    public void schemasSharedBySeveralSourcesAreOnlyMappedOnce() throws Exception
+    {
+        final File usersFile = sourceFolder.newFile("users.raml");
+        FileUtils.writeStringToFile(usersFile, "#%RAML 0.8\n---\ntitle: Users\nschemas:\n"
+                                               + "  - user: |\n"
+                                               + "      {\"type\": \"object\", \"properties\": {\"name\": {\"type\": \"string\"}}}\n"
+                                               + "/users:\n  get:\n    responses:\n      200:\n"
+                                               + "        body:\n          application/json:\n"
+                                               + "            schema: user\n");
+        // the same schema formatted differently, and under another name too
+        final File peopleFile = sourceFolder.newFile("people.raml");
+        FileUtils.writeStringToFile(peopleFile, "#%RAML 0.8\n---\ntitle: People\nschemas:\n"
+                                                + "  - user: |\n"
+                                                + "      {\"properties\":{\"name\":{\"type\":\"string\"}},\"type\":\"object\"}\n"
+                                                + "  - person: |\n"
+                                                + "      {\"properties\":{\"name\":{\"type\":\"string\"}},\"type\":\"object\"}\n"
+                                                + "/people:\n  get:\n    responses:\n      200:\n"
+                                                + "        body:\n          application/json:\n"
+                                                + "            schema: user\n"
+                                                + "/persons:\n  get:\n    responses:\n      200:\n"
+                                                + "        body:\n          application/json:\n"
+                                                + "            schema: person\n");
+
+        final Configuration configuration = createConfiguration(serialOutputFolder.getRoot());
+        configuration.setShareSchemaModels(true);
+
+        final GenerationMetrics metrics = new GenerationMetrics();
+        final BatchGenerator batchGenerator = new BatchGenerator(2);
+        batchGenerator.addListener(metrics);
+        final Set<String> generatedFiles = batchGenerator.run(Arrays.asList(usersFile, peopleFile),
+            configuration);
+
+        // schemas defined under different names are never merged
+        assertThat(generatedFiles, hasItem("org/raml/jaxrs/test/model/User.java"));
+        assertThat(generatedFiles, hasItem("org/raml/jaxrs/test/model/Person.java"));
+        assertThat(FileUtils.readFileToString(new File(serialOutputFolder.getRoot(),
+            "org/raml/jaxrs/test/resource/Persons.java")), containsString("model.Person"));
+        // User and Person, and the Users, People and Persons resources along with their response classes
+        assertThat(metrics.getClassCount(), is(8));
+
+        // sharing is disabled by default
+        final GenerationMetrics unsharedMetrics = new GenerationMetrics();
+        final BatchGenerator unsharedBatchGenerator = new BatchGenerator(2);
+        unsharedBatchGenerator.addListener(unsharedMetrics);
+        unsharedBatchGenerator.run(Arrays.asList(usersFile, peopleFile),
+            createConfiguration(concurrentOutputFolder.getRoot()));
+        assertThat(unsharedMetrics.getClassCount(), is(9));
+    }
+
+    private Configuration createConfiguration(final File outputDirectory) throws Exception
+    {
+        final Configuration configuration = new Configuration();
+        configuration.setOutputDirectory(outputDirectory);
+        configuration.setBasePackageName(TEST_BASE_PACKAGE);
+        configuration.setSourceDirectory(getTestFile("/org/raml"));
+        return configuration;
+    }
+
+    private File getTestFile(final String path) throws Exception
+    {
+        return new File(getClass().getResource(path).toURI());
+    }
+}
@@ -0,0 +1,159 @@
+/*
+ * Copyright 2013 (c) MuleSoft, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.raml.jaxrs.codegen.core;
+
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.io.File;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.raml.jaxrs.codegen.core.GenerationMetrics.Sample;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class GenerationMetricsTestCase
+{
+    private static final String TEST_BASE_PACKAGE = "org.raml.jaxrs.test";
+
+    private static final String RAML = "#%RAML 0.8\n---\ntitle: Test\nschemas:\n  - user: "
+                                       + "'{\"type\": \"object\", \"properties\": {\"name\": {\"type\": \"string\"}}}'\n"
+                                       + "/users:\n  get:\n    responses:\n      200:\n        body:\n"
+                                       + "          application/json:\n            schema: user\n"
+                                       + "/things:\n  get:\n  post:\n";
+
+    @Rule
+    public TemporaryFolder outputFolder = new TemporaryFolder();
+
+    @Test
+    public void phasesAndCountsAreRecorded() throws Exception
+    {
+        for (final int resourceThreads : new int[]{1, 2})
+        {
+            FileUtils.cleanDirectory(outputFolder.getRoot());
+
+            final List<String> events = new ArrayList<String>();
+            final Generator generator = new Generator();
+            generator.addListener(new GenerationListener()
+            {
+                @Override
+                public synchronized void phaseStarted(final GenerationPhase phase, final String subject)
+                {
+                    events.add("started " + phase + " " + subject);
+                }
+
+                @Override
+                public synchronized void phaseCompleted(final GenerationPhase phase, final String subject)
+                {
+                    events.add("completed " + phase + " " + subject);
+                }
+
+                @Override
+                public void classGenerated(final String className, final int methodCount)
+                {
+                }
+
+                @Override
+                public void fileGenerated(final String path)
+                {
+                }
+
+                @Override
+                public void fileWritten(final String path)
+                {
+                }
+
+                @Override
+                public void fileDeleted(final String path)
+                {
+                }
+            });
+
+            final Set<String> generatedFiles = generator.run(new StringReader(RAML),
+                createConfiguration(resourceThreads));
+            final GenerationMetrics metrics = generator.getMetrics();
+
+            assertThat(events.get(0), is("started VALIDATION "));
+            assertThat(events, hasItem("completed RESOURCE_INTERFACE /things"));
+            assertThat(events, hasItem("completed SCHEMA_MAPPING User"));
+
+            assertThat(countSamples(metrics, GenerationPhase.VALIDATION), is(1));
+            assertThat(countSamples(metrics, GenerationPhase.PARSING), is(1));
+            assertThat(countSamples(metrics, GenerationPhase.RESOURCE_INTERFACE), is(2));
+            assertThat(countSamples(metrics, GenerationPhase.SCHEMA_MAPPING), is(1));
+            assertThat(metrics.getWallTime(GenerationPhase.CODE_MODEL_BUILD), is(greaterThan(0L)));
+
+            // Users, its nested response class, Things and User
+            assertThat(metrics.getClassCount(), is(4));
+            assertThat(metrics.getMethodCount(), is(greaterThan(3)));
+            assertThat(metrics.getFileCount(), is(generatedFiles.size()));
+            assertThat(metrics.getWrittenFileCount(), is(generatedFiles.size()));
+
+            // nothing changed so nothing is written again
+            final Generator rerunGenerator = new Generator();
+            rerunGenerator.run(new StringReader(RAML), createConfiguration(resourceThreads));
+            assertThat(rerunGenerator.getMetrics().getFileCount(), is(generatedFiles.size()));
+            assertThat(rerunGenerator.getMetrics().getWrittenFileCount(), is(0));
+        }
+    }
+
+    @Test
+    public void reportIsWritten() throws Exception
+    {
+        final Generator generator = new Generator();
+        generator.run(new StringReader(RAML), createConfiguration(1));
+
+        final File reportFile = new File(outputFolder.newFolder(), "reports/metrics.json");
+        generator.getMetrics().writeReport(reportFile);
+
+        final JsonNode report = new ObjectMapper().readTree(reportFile);
+        assertThat(report.path("phases").path("RESOURCE_INTERFACE").path("count").asInt(), is(2));
+        assertThat(report.path("samples").size(), is(generator.getMetrics().getSamples().size()));
+        assertThat(report.path("files").asInt(), is(generator.getMetrics().getFileCount()));
+    }
+
+    private Configuration createConfiguration(final int resourceThreads)
+    {
+        final Configuration configuration = new Configuration();
+        configuration.setOutputDirectory(outputFolder.getRoot());
+        configuration.setBasePackageName(TEST_BASE_PACKAGE);
+        configuration.setResourceThreads(resourceThreads);
+        return configuration;
+    }
+
+    private int countSamples(final GenerationMetrics metrics, final GenerationPhase phase)
+    {
+        int count = 0;
+        for (final Sample sample : metrics.getSamples())
+        {
+            if (sample.getPhase() == phase)
+            {
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,162 @@
+/*
+ * Copyright 2013 (c) MuleSoft, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.raml.jaxrs.codegen.core;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.startsWith;
+import static org.junit.Assert.assertThat;
+
+import java.io.File;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class GeneratorDaemonTestCase
+{
+    @Rule
+    public TemporaryFolder sourceFolder = new TemporaryFolder();
+
+    @Rule
+    public TemporaryFolder outputFolder = new TemporaryFolder();
+
+    @Rule
+    public TemporaryFolder secretFolder = new TemporaryFolder();
+
+    private GeneratorDaemon daemon;
+    private Thread daemonThread;
+
+    @Before
+    public void startDaemon() throws Exception
+    {
+        daemon = new GeneratorDaemon(0, new File(secretFolder.getRoot(), "daemon.secret"));
+        daemon.setRequestTimeout(500);
+        daemonThread = new Thread(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                try
+                {
+                    daemon.run();
+                }
+                catch (final Exception e)
+                {
+                    throw new RuntimeException(e);
+                }
+            }
+        });
+        daemonThread.start();
+    }
+
+    @After
+    public void stopDaemon() throws Exception
+    {
+        daemon.close();
+        daemonThread.join(10000L);
+    }
+
+    @Test
+    public void jobsSeeModifiedIncludes() throws Exception
+    {
+        FileUtils.writeStringToFile(sourceFolder.newFile("api.raml"),
+            "#%RAML 0.8\n---\ntitle: Test\n/things: !include things.yaml\n");
+        final File includedFile = sourceFolder.newFile("things.yaml");
+        FileUtils.writeStringToFile(includedFile, "displayName: Things\nget:\n");
+
+        assertThat(generate(), contains("OK 1"));
+        assertThat(new File(outputFolder.getRoot(), "org/raml/jaxrs/test/resource/Things.java").isFile(),
+            is(true));
+
+        FileUtils.writeStringToFile(includedFile, "displayName: Stuff\nget:\n");
+        assertThat(generate(), contains("OK 1"));
+        assertThat(new File(outputFolder.getRoot(), "org/raml/jaxrs/test/resource/Stuff.java").isFile(),
+            is(true));
+    }
+
+    @Test
+    public void failuresAreReported() throws Exception
+    {
+        FileUtils.writeStringToFile(sourceFolder.newFile("api.raml"), "#%RAML 0.8\n---\nversion: v1\n");
+
+        final List<String> response = generate();
+        assertThat(response, hasSize(2));
+        assertThat(response.get(0), startsWith(GeneratorDaemon.ERROR_PREFIX));
+        assertThat(response.get(1), is(GeneratorDaemon.FAILED_STATUS));
+    }
+
+    @Test
+    public void daemonStopsOnRequest() throws Exception
+    {
+        assertThat(GeneratorDaemonClient.stop(daemon.getPort(), daemon.getSecretFile()),
+            contains(GeneratorDaemon.OK_STATUS));
+
+        daemonThread.join(10000L);
+        assertThat(daemonThread.isAlive(), is(false));
+    }
+
+    @Test
+    public void requestsWithoutTheSecretAreRejected() throws Exception
+    {
+        assertThat(daemon.getSecretFile().canRead(), is(true));
+
+        final File forgedSecretFile = secretFolder.newFile("forged.secret");
+        FileUtils.writeStringToFile(forgedSecretFile, "guess");
+
+        final List<String> response = GeneratorDaemonClient.stop(daemon.getPort(), forgedSecretFile);
+        assertThat(response, hasSize(2));
+        assertThat(response.get(1), is(GeneratorDaemon.FAILED_STATUS));
+        assertThat(daemonThread.isAlive(), is(true));
+    }
+
+    // the idle client would otherwise block the daemon forever
+    @Test(timeout = 30000L)
+    public void idleClientsDontPreventOthersFromBeingServed() throws Exception
+    {
+        final Socket idleSocket = new Socket(InetAddress.getByName(null), daemon.getPort());
+        try
+        {
+            // an unfinished request line
+            idleSocket.getOutputStream().write("guess".getBytes("UTF-8"));
+            idleSocket.getOutputStream().flush();
+
+            FileUtils.writeStringToFile(sourceFolder.newFile("api.raml"),
+                "#%RAML 0.8\n---\ntitle: Test\n/things:\n  get:\n");
+            assertThat(generate(), contains("OK 1"));
+        }
+        finally
+        {
+            idleSocket.close();
+        }
+    }
+
+    private List<String> generate() throws Exception
+    {
+        // relative paths are resolved against the working directory of the client
+        return GeneratorDaemonClient.generate(daemon.getPort(), daemon.getSecretFile(), sourceFolder.getRoot(),
+            Arrays.asList("-sourcePaths", "api.raml", "-sourceDirectory", ".", "-outputDirectory",
+                outputFolder.getRoot().getAbsolutePath(), "-basePackageName", "org.raml.jaxrs.test"));
+    }
+}
@@ -0,0 +1,167 @@
+/*
+ * Copyright 2013 (c) MuleSoft, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.raml.jaxrs.codegen.core;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.Assert.assertThat;
+
+import java.io.StringReader;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.raml.model.Raml;
+import org.raml.parser.visitor.RamlDocumentBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Checks that generation time and heap grow linearly with the number of resources, and that the heap
+ * retained in streaming mode doesn't grow with them. Only run by the scale-tests profile, the largest
+ * number of resources being set by the <code>scale.resources</code> system property.
+ */
+public class GeneratorScaleTestCase
+{
+    private static final Logger LOGGER = LoggerFactory.getLogger(GeneratorScaleTestCase.class);
+
+    private static final String TEST_BASE_PACKAGE = "org.raml.jaxrs.test";
+
+    private static final int STEPS = 4;
+
+    // linear growth gives a ratio of 2 when doubling the resources, quadratic growth a ratio of 4
+    private static final double MAX_GROWTH_RATIO = 3.0;
+
+    @Rule
+    public TemporaryFolder outputFolder = new TemporaryFolder();
+
+    // the heap retained in streaming mode only depends on the schemas, not on the resources
+    private static final long MAX_STREAMING_RETAINED_HEAP = 32L << 20;
+
+    @Test
+    public void generationScalesLinearly() throws Exception
+    {
+        run(false);
+    }
+
+    @Test
+    public void streamingGenerationScalesLinearly() throws Exception
+    {
+        run(true);
+    }
+
+    private void run(final boolean streaming) throws Exception
+    {
+        final int maxResources = Integer.getInteger("scale.resources", 10000);
+
+        // warm up so the smallest run doesn't pay for class loading and JIT compilation
+        generate(buildRaml(maxResources >> STEPS), streaming);
+
+        long previousTime = 0;
+        long previousHeap = 0;
+        for (int resources = maxResources >> (STEPS - 1); resources <= maxResources; resources <<= 1)
+        {
+            final String raml = buildRaml(resources);
+
+            final long time = generate(raml, streaming);
+            final long heap = measureRetainedHeap(raml, streaming);
+            LOGGER.info(resources + " resources generated in " + time + " ms, retaining " + (heap >> 20)
+                        + " MB" + (streaming ? " in streaming mode" : ""));
+
+            if (streaming)
+            {
+                assertThat("heap at " + resources + " resources", heap,
+                    is(lessThan(MAX_STREAMING_RETAINED_HEAP)));
+            }
+
+            if (previousTime > 0)
+            {
+                assertThat("time ratio at " + resources + " resources", (double) time / previousTime,
+                    is(lessThan(MAX_GROWTH_RATIO)));
+                if (!streaming)
+                {
+                    assertThat("heap ratio at " + resources + " resources", (double) heap / previousHeap,
+                        is(lessThan(MAX_GROWTH_RATIO)));
+                }
+            }
+            previousTime = time;
+            previousHeap = heap;
+        }
+    }
+
+    private String buildRaml(final int resources)
+    {
+        return new SyntheticRamlBuilder().withResources(resources)
+            .withNestingDepth(1)
+            .withActionsPerResource(3)
+            .withQueryParameters(2)
+            .withHeaders(1)
+            .withResponseCodes(2)
+            .withSchemas(50)
+            .build();
+    }
+
+    /**
+     * @return the time, in milliseconds, to generate the RAML document from scratch.
+     */
+    private long generate(final String raml, final boolean streaming) throws Exception
+    {
+        FileUtils.cleanDirectory(outputFolder.getRoot());
+
+        final long start = System.nanoTime();
+        new Generator().run(new StringReader(raml), createConfiguration(streaming));
+        return (System.nanoTime() - start) / 1000000L;
+    }
+
+    /**
+     * @return the heap retained by the parsed RAML document and the code generated out of it.
+     */
+    private long measureRetainedHeap(final String raml, final boolean streaming) throws Exception
+    {
+        FileUtils.cleanDirectory(outputFolder.getRoot());
+        final long baseline = getUsedHeap();
+
+        final Raml parsedRaml = new RamlDocumentBuilder().build(raml, "");
+        final Context context = new Generator().generateResourceInterfaces(parsedRaml,
+            createConfiguration(streaming));
+
+        final long heap = getUsedHeap() - baseline;
+
+        // keep the measured objects reachable until measured
+        assertThat(context.getConfiguration() != null, is(true));
+        return heap;
+    }
+
+    private Configuration createConfiguration(final boolean streaming)
+    {
+        final Configuration configuration = new Configuration();
+        configuration.setOutputDirectory(outputFolder.getRoot());
+        configuration.setBasePackageName(TEST_BASE_PACKAGE);
+        configuration.setStreaming(streaming);
+        return configuration;
+    }
+
+    private static long getUsedHeap()
+    {
+        final Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++)
+        {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -16,27 +16,43 @@
 package org.raml.jaxrs.codegen.core;
 
 import static org.apache.commons.lang.ArrayUtils.EMPTY_STRING_ARRAY;
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.emptyArray;
+import static org.hamcrest.Matchers.hasItem;
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
 import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
 import static org.raml.jaxrs.codegen.core.Configuration.JaxrsVersion.JAXRS_1_1;
 import static org.raml.jaxrs.codegen.core.Configuration.JaxrsVersion.JAXRS_2_0;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
+import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.StringReader;
+import java.lang.reflect.Method;
 import java.net.URL;
 import java.net.URLClassLoader;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
 
+import javax.ws.rs.core.Response;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
 import org.apache.commons.jci.compilers.CompilationResult;
 import org.apache.commons.jci.compilers.JavaCompiler;
 import org.apache.commons.jci.compilers.JavaCompilerFactory;
 import org.apache.commons.jci.compilers.JavaCompilerSettings;
 import org.apache.commons.jci.readers.FileResourceReader;
 import org.apache.commons.jci.stores.FileResourceStore;
+import org.apache.commons.lang.StringUtils;
 import org.apache.commons.lang.builder.ToStringBuilder;
 import org.apache.commons.lang.builder.ToStringStyle;
 import org.junit.Ignore;
@@ -44,6 +60,7 @@ import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
 import org.raml.jaxrs.codegen.core.Configuration.JaxrsVersion;
+import org.raml.parser.loader.ResourceLoader;
 
 import com.sun.jersey.api.core.PackagesResourceConfig;
 import com.sun.jersey.api.core.ResourceConfig;
@@ -58,6 +75,9 @@ public class GeneratorTestCase
     @Rule
     public TemporaryFolder compilationOutputFolder = new TemporaryFolder();
 
+    @Rule
+    public TemporaryFolder concurrentOutputFolder = new TemporaryFolder();
+
     @Test
     public void runForJaxrs11WithoutJsr303() throws Exception
     {
@@ -84,6 +104,311 @@ public class GeneratorTestCase
         run(JAXRS_2_0, true);
     }
 
+    @Test
+    public void includedResourcesAreOnlyFetchedOnce() throws Exception
+    {
+        final Map<String, Integer> fetchCounts = new HashMap<String, Integer>();
+
+        final Generator generator = new Generator();
+        generator.setResourceLoader(new ResourceLoader()
+        {
+            @Override
+            public InputStream fetchResource(final String resourceName)
+            {
+                final Integer fetchCount = fetchCounts.get(resourceName);
+                fetchCounts.put(resourceName, fetchCount == null ? 1 : fetchCount + 1);
+
+                if (!"things.yaml".equals(resourceName))
+                {
+                    return null;
+                }
+                return new ByteArrayInputStream("displayName: Things\nget:\n".getBytes());
+            }
+        });
+
+        final Configuration configuration = new Configuration();
+        configuration.setOutputDirectory(codegenOutputFolder.getRoot());
+        configuration.setBasePackageName(TEST_BASE_PACKAGE);
+
+        final Set<String> generatedSources = generator.run(new StringReader(
+            "#%RAML 0.8\n---\ntitle: Test\n/things: !include things.yaml\n"), configuration);
+
+        assertThat(generatedSources, hasItem("org/raml/jaxrs/test/resource/Things.java"));
+        assertThat(fetchCounts.get("things.yaml"), is(1));
+    }
+
+    @Test
+    public void unchangedFilesAreNotRewritten() throws Exception
+    {
+        final Configuration configuration = new Configuration();
+        configuration.setOutputDirectory(codegenOutputFolder.getRoot());
+        configuration.setBasePackageName(TEST_BASE_PACKAGE);
+        configuration.setSourceDirectory(new File(getClass().getResource("/org/raml").getPath()));
+
+        final Set<String> generatedSources = new Generator().run(new InputStreamReader(
+            getClass().getResourceAsStream("/org/raml/full-config-with-patch.yaml")), configuration);
+        for (final String generatedSource : generatedSources)
+        {
+            new File(codegenOutputFolder.getRoot(), generatedSource).setLastModified(1000L);
+        }
+
+        assertThat(new Generator().run(new InputStreamReader(
+            getClass().getResourceAsStream("/org/raml/full-config-with-patch.yaml")), configuration),
+            is(generatedSources));
+        for (final String generatedSource : generatedSources)
+        {
+            assertThat(generatedSource, new File(codegenOutputFolder.getRoot(), generatedSource).lastModified(),
+                is(1000L));
+        }
+    }
+
+    @Test
+    public void concurrentResourceGenerationMatchesSerialGeneration() throws Exception
+    {
+        // a resource interface named like a java.lang class changes how the others are formatted
+        final String collidingRaml = "#%RAML 0.8\n---\ntitle: Test\n/things:\n  get:\n    queryParameters:\n"
+                                     + "      name:\n/string:\n  get:\n/things/{id}:\n  get:\n";
+
+        final String[] ramlPaths = {"/org/raml/full-config-with-patch.yaml",
+            "/org/raml/integration/sales-enablement-api-with-collections.yaml",
+            "/org/raml/params/param-types-with-repeat.yaml"};
+        for (final String ramlPath : ramlPaths)
+        {
+            assertMatchesSerial(IOUtils.toString(getClass().getResourceAsStream(ramlPath)), 4, false);
+        }
+        assertMatchesSerial(collidingRaml, 4, false);
+    }
+
+    @Test
+    public void streamingGenerationMatchesSerialGeneration() throws Exception
+    {
+        // a resource interface named like a java.lang class changes how the others are formatted
+        final String collidingRaml = "#%RAML 0.8\n---\ntitle: Test\n/things:\n  get:\n    queryParameters:\n"
+                                     + "      name:\n/string:\n  get:\n/things/{id}:\n  get:\n";
+
+        final String[] ramlPaths = {"/org/raml/full-config-with-patch.yaml",
+            "/org/raml/integration/sales-enablement-api-with-collections.yaml",
+            "/org/raml/params/param-types-with-repeat.yaml"};
+        for (final int resourceThreads : new int[]{1, 2})
+        {
+            for (final String ramlPath : ramlPaths)
+            {
+                assertMatchesSerial(IOUtils.toString(getClass().getResourceAsStream(ramlPath)),
+                    resourceThreads, true);
+            }
+            assertMatchesSerial(collidingRaml, resourceThreads, true);
+        }
+    }
+
+    @Test
+    public void asyncResourceMethodsResumeTypedResponses() throws Exception
+    {
+        final String raml = "#%RAML 0.8\n---\ntitle: Test\n/things:\n  get:\n    responses:\n      200:\n"
+                            + "        body:\n          text/plain:\n  delete:\n";
+
+        final Configuration configuration = new Configuration();
+        configuration.setBasePackageName(TEST_BASE_PACKAGE);
+        configuration.setOutputDirectory(codegenOutputFolder.getRoot());
+        configuration.setAsyncResourceMethods(true);
+
+        try
+        {
+            new Generator().run(new StringReader(raml), configuration);
+            fail("Asynchronous resource methods should require JAX-RS 2.0");
+        }
+        catch (final IllegalArgumentException iae)
+        {
+            // expected
+        }
+
+        configuration.setJaxrsVersion(JAXRS_2_0);
+        new Generator().run(new StringReader(raml), configuration);
+
+        final String source = FileUtils.readFileToString(new File(codegenOutputFolder.getRoot(),
+            "org/raml/jaxrs/test/resource/Things.java"));
+        assertThat(source, containsString("void getThings(\n        @javax.ws.rs.container.Suspended\n"
+                                          + "        javax.ws.rs.container.AsyncResponse asyncResponse)"));
+        assertThat(source, containsString("void deleteThings(\n        @javax.ws.rs.container.Suspended\n"
+                                          + "        javax.ws.rs.container.AsyncResponse asyncResponse)"));
+        // the typed responses are still generated to resume with
+        assertThat(source, containsString("public static Things.GetThingsResponse plainOK(String entity)"));
+    }
+
+    @Test
+    public void streamingResponseBuildersAcceptStreams() throws Exception
+    {
+        final String raml = "#%RAML 0.8\n---\ntitle: Test\n/things:\n  get:\n    responses:\n      200:\n"
+                            + "        body:\n          text/plain:\n          application/octet-stream:\n";
+
+        final Configuration configuration = new Configuration();
+        configuration.setBasePackageName(TEST_BASE_PACKAGE);
+        configuration.setOutputDirectory(codegenOutputFolder.getRoot());
+        configuration.setStreamingResponseBuilders(true);
+        new Generator().run(new StringReader(raml), configuration);
+
+        final String source = FileUtils.readFileToString(new File(codegenOutputFolder.getRoot(),
+            "org/raml/jaxrs/test/resource/Things.java"));
+        assertThat(source, containsString("plainOK(String entity)"));
+        assertThat(source, containsString("plainOKStreaming(StreamingOutput entity)"));
+        assertThat(source, containsString("plainOKStreaming(InputStream entity)"));
+        assertThat(source, containsString("plainOKStreaming(ReadableByteChannel entity)"));
+        assertThat(source, containsString(".entity(Channels.newInputStream(entity))"));
+        // octet streams already default to a streaming output, the streaming builders don't overload them
+        assertThat(StringUtils.countMatches(source, "OK(StreamingOutput entity)"), is(1));
+        assertThat(StringUtils.countMatches(source, "OKStreaming(StreamingOutput entity)"), is(2));
+    }
+
+    @Test
+    public void streamingRequestBodiesAreNotMaterialized() throws Exception
+    {
+        final String raml = "#%RAML 0.8\n---\ntitle: Test\n/things:\n  post:\n    body:\n"
+                            + "      text/csv:\n      image/png:\n";
+
+        final Configuration configuration = new Configuration();
+        configuration.setBasePackageName(TEST_BASE_PACKAGE);
+        configuration.setOutputDirectory(codegenOutputFolder.getRoot());
+        configuration.setStreamingRequestBodies(true);
+        new Generator().run(new StringReader(raml), configuration);
+
+        final String source = FileUtils.readFileToString(new File(codegenOutputFolder.getRoot(),
+            "org/raml/jaxrs/test/resource/Things.java"));
+        assertThat(source, containsString("postCsvThings(Reader entity)"));
+        assertThat(source, containsString("postPngThings(InputStream entity)"));
+    }
+
+    @Test
+    public void bodylessResponsesAreBuiltOnce() throws Exception
+    {
+        final String raml = "#%RAML 0.8\n---\ntitle: Test\n/things:\n  delete:\n    responses:\n"
+                            + "      200:\n        body:\n          text/plain:\n"
+                            + "      204:\n        description: Deleted\n      401:\n        description: Denied\n"
+                            + "      404:\n        headers:\n          X-Reason:\n            type: string\n";
+
+        final Configuration configuration = new Configuration();
+        configuration.setBasePackageName(TEST_BASE_PACKAGE);
+        configuration.setOutputDirectory(codegenOutputFolder.getRoot());
+        final Set<String> generatedSources = new Generator().run(new StringReader(raml), configuration);
+
+        final String source = FileUtils.readFileToString(new File(codegenOutputFolder.getRoot(),
+            "org/raml/jaxrs/test/resource/Things.java"));
+        assertThat(source, containsString("Response.fromResponse(WITHOUT_CONTENT).build()"));
+        assertThat(source, containsString("Response.fromResponse(UNAUTHORIZED).build()"));
+        // responses with headers are still built on each call
+        assertThat(source, not(containsString("NOT_FOUND")));
+
+        // each call gets its own response, which callers can change
+        final Method withoutContent = compile(generatedSources).loadClass(
+            "org.raml.jaxrs.test.resource.Things$DeleteThingsResponse").getMethod("withoutContent");
+        final Response changedResponse = (Response) withoutContent.invoke(null);
+        changedResponse.getMetadata().add("X-Changed", "true");
+
+        final Response response = (Response) withoutContent.invoke(null);
+        assertThat(response, is(not(sameInstance(changedResponse))));
+        assertThat(response.getStatus(), is(204));
+        assertThat(response.getMetadata().containsKey("X-Changed"), is(false));
+    }
+
+    @Test
+    public void responseMediaTypesAreParsedOnce() throws Exception
+    {
+        final String raml = "#%RAML 0.8\n---\ntitle: Test\n/things:\n  get:\n    responses:\n      200:\n"
+                            + "        body:\n          text/plain:\n          application/x-thing:\n"
+                            + "          application/x.thing:\n  post:\n    responses:\n      201:\n"
+                            + "        body:\n          text/plain:\n";
+
+        final Configuration configuration = new Configuration();
+        configuration.setBasePackageName(TEST_BASE_PACKAGE);
+        configuration.setOutputDirectory(codegenOutputFolder.getRoot());
+        new Generator().run(new StringReader(raml), configuration);
+
+        final String source = FileUtils.readFileToString(new File(codegenOutputFolder.getRoot(),
+            "org/raml/jaxrs/test/resource/Things.java"));
+        assertThat(StringUtils.countMatches(source, "new MediaType(\"text\", \"plain\")"), is(1));
+        assertThat(StringUtils.countMatches(source, ".type(TEXT_PLAIN_TYPE)"), is(2));
+        assertThat(source, containsString("APPLICATION_X_THING_TYPE = new MediaType(\"application\", \"x-thing\")"));
+        assertThat(source, containsString("APPLICATION_X_THING_TYPE_1 = new MediaType(\"application\", \"x.thing\")"));
+    }
+
+    @Test
+    public void responseMediaTypesNeverFailAtRuntime() throws Exception
+    {
+        final String raml = "#%RAML 0.8\n---\ntitle: Test\n/things:\n  get:\n    responses:\n      200:\n"
+                            + "        body:\n          application/vnd.acme.thing+json:\n"
+                            + "          'text/plain; charset=\"UTF-8\"':\n"
+                            + "          'text/csv; charset=UTF-8; header=present':\n"
+                            + "          'image/png/x':\n";
+
+        final Configuration configuration = new Configuration();
+        configuration.setBasePackageName(TEST_BASE_PACKAGE);
+        configuration.setOutputDirectory(codegenOutputFolder.getRoot());
+        new Generator().run(new StringReader(raml), configuration);
+
+        final String source = FileUtils.readFileToString(new File(codegenOutputFolder.getRoot(),
+            "org/raml/jaxrs/test/resource/Things.java"));
+        assertThat(source, containsString("new MediaType(\"application\", \"vnd.acme.thing+json\")"));
+        assertThat(source,
+            containsString("new MediaType(\"text\", \"plain\", Collections.singletonMap(\"charset\", \"UTF-8\"))"));
+        assertThat(source, not(containsString("valueOf")));
+        assertThat(source,
+            containsString(".header(HttpHeaders.CONTENT_TYPE, \"text/csv; charset=UTF-8; header=present\")"));
+        assertThat(source, containsString(".header(HttpHeaders.CONTENT_TYPE, \"image/png/x\")"));
+    }
+
+    @Test
+    public void inlineSchemasWithTheSameHashCodeGetDistinctClasses() throws Exception
+    {
+        final String aaSchema = "{\"type\": \"object\", \"properties\": {\"Aa\": {\"type\": \"string\"}}}";
+        final String bbSchema = aaSchema.replace("Aa", "BB");
+        assertThat(aaSchema.hashCode(), is(bbSchema.hashCode()));
+
+        final String raml = "#%RAML 0.8\n---\ntitle: Test\n/as:\n  post:\n    body:\n"
+                            + "      application/json:\n        schema: '" + aaSchema + "'\n"
+                            + "/bs:\n  post:\n    body:\n      application/json:\n        schema: '" + bbSchema
+                            + "'\n";
+
+        final Configuration configuration = new Configuration();
+        configuration.setBasePackageName(TEST_BASE_PACKAGE);
+        configuration.setOutputDirectory(codegenOutputFolder.getRoot());
+        // each schema is then mapped in a code model of its own
+        configuration.setModelCacheDirectory(compilationOutputFolder.getRoot());
+        new Generator().run(new StringReader(raml), configuration);
+
+        final String bs = FileUtils.readFileToString(new File(codegenOutputFolder.getRoot(),
+            "org/raml/jaxrs/test/resource/Bs.java"));
+        final String bbClassName = StringUtils.substringBetween(bs, "postBs(", " entity)");
+        assertThat(bbClassName, containsString("Sha"));
+        assertThat(FileUtils.readFileToString(new File(codegenOutputFolder.getRoot(), "org/raml/jaxrs/test/model/"
+                                                                                      + bbClassName + ".java")),
+            containsString("getBB()"));
+    }
+
+    private void assertMatchesSerial(final String raml, final int resourceThreads, final boolean streaming)
+        throws Exception
+    {
+        FileUtils.cleanDirectory(codegenOutputFolder.getRoot());
+        FileUtils.cleanDirectory(concurrentOutputFolder.getRoot());
+
+        final Configuration configuration = new Configuration();
+        configuration.setBasePackageName(TEST_BASE_PACKAGE);
+        configuration.setSourceDirectory(new File(getClass().getResource("/org/raml").getPath()));
+
+        configuration.setOutputDirectory(codegenOutputFolder.getRoot());
+        final Set<String> serialSources = new Generator().run(new StringReader(raml), configuration);
+
+        configuration.setOutputDirectory(concurrentOutputFolder.getRoot());
+        configuration.setResourceThreads(resourceThreads);
+        configuration.setStreaming(streaming);
+        final Set<String> concurrentSources = new Generator().run(new StringReader(raml), configuration);
+
+        assertThat(concurrentSources, is(serialSources));
+        for (final String generatedSource : serialSources)
+        {
+            assertThat(generatedSource,
+                FileUtils.readFileToString(new File(concurrentOutputFolder.getRoot(), generatedSource)),
+                is(FileUtils.readFileToString(new File(codegenOutputFolder.getRoot(), generatedSource))));
+        }
+    }
+
     private void run(final JaxrsVersion jaxrsVersion, final boolean useJsr303Annotations) throws Exception
     {
         final Set<String> generatedSources = new HashSet<String>();
@@ -129,7 +454,33 @@ public class GeneratorTestCase
             new InputStreamReader(getClass().getResourceAsStream("/org/raml/schema/valid-xml.yaml")),
             configuration));
 
-        // test compile the classes
+        // test load the classes with Jersey
+        final URLClassLoader resourceClassLoader = compile(generatedSources);
+
+        final ClassLoader initialClassLoader = Thread.currentThread().getContextClassLoader();
+        try
+        {
+            Thread.currentThread().setContextClassLoader(resourceClassLoader);
+            final ResourceConfig config = new PackagesResourceConfig(TEST_BASE_PACKAGE);
+
+            assertThat("Found: " + config.getRootResourceClasses(), config.getRootResourceClasses(),
+                hasSize(13));
+
+            // TODO testing: actually send HTTP requests at the resources
+        }
+        finally
+        {
+            Thread.currentThread().setContextClassLoader(initialClassLoader);
+        }
+    }
+
+    /**
+     * Compiles the generated sources.
+     *
+     * @return a class loader of the compiled classes.
+     */
+    private URLClassLoader compile(final Set<String> generatedSources) throws Exception
+    {
         final JavaCompiler compiler = new JavaCompilerFactory().createCompiler("eclipse");
 
         final JavaCompilerSettings settings = compiler.createDefaultSettings();
@@ -152,24 +503,6 @@ public class GeneratorTestCase
             ToStringBuilder.reflectionToString(result.getWarnings(), ToStringStyle.SHORT_PREFIX_STYLE),
             result.getWarnings(), is(emptyArray()));
 
-        // test load the classes with Jersey
-        final URLClassLoader resourceClassLoader = new URLClassLoader(
-            new URL[]{compilationOutputFolder.getRoot().toURI().toURL()});
-
-        final ClassLoader initialClassLoader = Thread.currentThread().getContextClassLoader();
-        try
-        {
-            Thread.currentThread().setContextClassLoader(resourceClassLoader);
-            final ResourceConfig config = new PackagesResourceConfig(TEST_BASE_PACKAGE);
-
-            assertThat("Found: " + config.getRootResourceClasses(), config.getRootResourceClasses(),
-                hasSize(13));
-
-            // TODO testing: actually send HTTP requests at the resources
-        }
-        finally
-        {
-            Thread.currentThread().setContextClassLoader(initialClassLoader);
-        }
+        return new URLClassLoader(new URL[]{compilationOutputFolder.getRoot().toURI().toURL()});
     }
 }
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2013 (c) MuleSoft, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.raml.jaxrs.codegen.core;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+import java.net.URI;
+import java.net.URL;
+
+import org.apache.commons.io.IOUtils;
+import org.jsonschema2pojo.Schema;
+import org.junit.Test;
+
+public class InMemorySchemaStoreTestCase
+{
+    @Test
+    public void schemasAreServedFromMemory() throws Exception
+    {
+        final InMemorySchemaStore schemaStore = new InMemorySchemaStore();
+        final URL schemaUrl = schemaStore.addSchema("an address", "{\"type\": \"object\"}");
+
+        assertThat(schemaUrl.getProtocol(), is(InMemorySchemaStore.SCHEME));
+        assertThat(IOUtils.toString(schemaUrl.openStream()), is("{\"type\": \"object\"}"));
+
+        final Schema schema = schemaStore.create(schemaUrl.toURI());
+        assertThat(schema.getContent().path("type").asText(), is("object"));
+    }
+
+    @Test
+    public void relativeReferencesAreResolvedByName() throws Exception
+    {
+        final InMemorySchemaStore schemaStore = new InMemorySchemaStore();
+        schemaStore.addSchema("address",
+            "{\"definitions\": {\"street\": {\"type\": \"string\"}}, \"type\": \"object\"}");
+        final URL userUrl = schemaStore.addSchema("user",
+            "{\"type\": \"object\", \"properties\": {\"address\": {\"$ref\": \"address\"}}}");
+
+        final Schema user = schemaStore.create(userUrl.toURI());
+        assertThat(schemaStore.create(user, "address").getContent().path("type").asText(), is("object"));
+        assertThat(schemaStore.create(user, "address#/definitions/street").getContent().toString(),
+            containsString("string"));
+    }
+
+    @Test
+    public void registeringTheSameSchemaAgainKeepsItsResolution() throws Exception
+    {
+        final InMemorySchemaStore schemaStore = new InMemorySchemaStore();
+        final Schema schema = schemaStore.create(schemaStore.addSchema("user", "{}").toURI());
+
+        assertThat(schemaStore.create(schemaStore.addSchema("user", "{}").toURI()), is(sameInstance(schema)));
+        assertThat(schemaStore.create(schemaStore.addSchema("user", "{\"type\": \"object\"}").toURI()),
+            is(not(sameInstance(schema))));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unknownSchemasAreRejected() throws Exception
+    {
+        new InMemorySchemaStore().create(new URI(InMemorySchemaStore.SCHEME, null, "/missing", null));
+    }
+}
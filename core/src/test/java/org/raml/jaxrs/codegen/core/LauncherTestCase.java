@@ -0,0 +1,43 @@
+/*
+ * Copyright 2013 (c) MuleSoft, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.raml.jaxrs.codegen.core;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.Map;
+
+import org.junit.Test;
+
+public class LauncherTestCase
+{
+    @Test
+    public void booleanOptionsDefaultToTrue()
+    {
+        final Map<String, String> argMap = Launcher.createArgMap(new String[]{"--watch", "-basePackageName",
+            "org.raml.jaxrs.test", "-incremental"});
+
+        assertThat(argMap.get("watch"), is("true"));
+        assertThat(argMap.get("basePackageName"), is("org.raml.jaxrs.test"));
+        assertThat(argMap.get("incremental"), is("true"));
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void optionsMissingTheirValueAreRejected()
+    {
+        Launcher.createArgMap(new String[]{"-basePackageName", "-outputDirectory", "out"});
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright 2013 (c) MuleSoft, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.raml.jaxrs.codegen.core;
+
+import static org.hamcrest.Matchers.arrayWithSize;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.junit.Assert.assertThat;
+
+import java.io.File;
+import java.io.StringReader;
+import java.util.Set;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ModelCacheTestCase
+{
+    private static final String TEST_BASE_PACKAGE = "org.raml.jaxrs.test";
+
+    private static final String USER_SCHEMA = "{\"type\": \"object\", "
+                                              + "\"properties\": {\"address\": {\"$ref\": \"address\"}}}";
+
+    @Rule
+    public TemporaryFolder cacheFolder = new TemporaryFolder();
+
+    @Rule
+    public TemporaryFolder uncachedOutputFolder = new TemporaryFolder();
+
+    @Rule
+    public TemporaryFolder cachedOutputFolder = new TemporaryFolder();
+
+    @Test
+    public void cachedModelsMatchGeneratedModels() throws Exception
+    {
+        final String raml = buildRaml(
+            "{\"type\": \"object\", \"properties\": {\"street\": {\"type\": \"string\"}}}");
+
+        final Set<String> uncachedFiles = run(raml, uncachedOutputFolder.getRoot(), null);
+        run(raml, cachedOutputFolder.getRoot(), cacheFolder.getRoot());
+
+        final File[] cacheEntries = cacheFolder.getRoot().listFiles();
+        assertThat(cacheEntries, is(arrayWithSize(2)));
+        for (final File cacheEntry : cacheEntries)
+        {
+            cacheEntry.setLastModified(1000L);
+        }
+
+        // a second run is served from the cache only
+        FileUtils.cleanDirectory(cachedOutputFolder.getRoot());
+        final Set<String> cachedFiles = run(raml, cachedOutputFolder.getRoot(), cacheFolder.getRoot());
+
+        assertThat(cachedFiles, is(equalTo(uncachedFiles)));
+        for (final String generatedFile : uncachedFiles)
+        {
+            assertThat(generatedFile,
+                FileUtils.readFileToString(new File(cachedOutputFolder.getRoot(), generatedFile)),
+                is(equalTo(FileUtils.readFileToString(new File(uncachedOutputFolder.getRoot(), generatedFile)))));
+        }
+        for (final File cacheEntry : cacheFolder.getRoot().listFiles())
+        {
+            assertThat(cacheEntry.lastModified(), is(1000L));
+        }
+    }
+
+    @Test
+    public void referencedSchemaChangesInvalidateCachedModels() throws Exception
+    {
+        run(buildRaml("{\"type\": \"object\", \"properties\": {\"street\": {\"type\": \"string\"}}}"),
+            cachedOutputFolder.getRoot(), cacheFolder.getRoot());
+
+        FileUtils.cleanDirectory(cachedOutputFolder.getRoot());
+        run(buildRaml("{\"type\": \"object\", \"properties\": {\"city\": {\"type\": \"string\"}}}"),
+            cachedOutputFolder.getRoot(), cacheFolder.getRoot());
+
+        final String address = FileUtils.readFileToString(new File(cachedOutputFolder.getRoot(),
+            "org/raml/jaxrs/test/model/Address.java"));
+        assertThat(address, containsString("city"));
+        assertThat(address, not(containsString("street")));
+    }
+
+    private String buildRaml(final String addressSchema)
+    {
+        return "#%RAML 0.8\n---\ntitle: Test\nschemas:\n  - address: '" + addressSchema + "'\n  - user: '"
+               + USER_SCHEMA + "'\n/users:\n  get:\n    responses:\n      200:\n        body:\n"
+               + "          application/json:\n            schema: user\n  post:\n        body:\n"
+               + "          application/json:\n            schema: address\n";
+    }
+
+    private Set<String> run(final String raml, final File outputDirectory, final File modelCacheDirectory)
+        throws Exception
+    {
+        final Configuration configuration = new Configuration();
+        configuration.setOutputDirectory(outputDirectory);
+        configuration.setBasePackageName(TEST_BASE_PACKAGE);
+        configuration.setModelCacheDirectory(modelCacheDirectory);
+
+        return new Generator().run(new StringReader(raml), configuration);
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2013 (c) MuleSoft, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.raml.jaxrs.codegen.core;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.raml.parser.loader.FileResourceLoader;
+import org.raml.parser.loader.ResourceLoader;
+
+public class ReloadingResourceLoaderTestCase
+{
+    @Rule
+    public TemporaryFolder sourceFolder = new TemporaryFolder();
+
+    private final Map<String, Integer> fetchCounts = new HashMap<String, Integer>();
+
+    @Test
+    public void filesAreReloadedOnlyOnceModified() throws Exception
+    {
+        final File file = sourceFolder.newFile("things.yaml");
+        FileUtils.writeStringToFile(file, "displayName: Things\n");
+        file.setLastModified(1000L);
+
+        final ResourceLoader loader = new ReloadingResourceLoader(sourceFolder.getRoot(),
+            createCountingLoader(), true);
+
+        assertThat(fetch(loader, "things.yaml"), is("displayName: Things\n"));
+        assertThat(fetch(loader, "things.yaml"), is("displayName: Things\n"));
+        assertThat(fetchCounts.get("things.yaml"), is(1));
+
+        FileUtils.writeStringToFile(file, "displayName: Stuff\n");
+        file.setLastModified(2000L);
+
+        assertThat(fetch(loader, "things.yaml"), is("displayName: Stuff\n"));
+        assertThat(fetchCounts.get("things.yaml"), is(2));
+    }
+
+    @Test
+    public void otherResourcesAreKeptOnlyWhenRequested() throws Exception
+    {
+        final ResourceLoader keepingLoader = new ReloadingResourceLoader(sourceFolder.getRoot(),
+            createCountingLoader(), true);
+        fetch(keepingLoader, "http://example.com/things.yaml");
+        fetch(keepingLoader, "http://example.com/things.yaml");
+        assertThat(fetchCounts.get("http://example.com/things.yaml"), is(1));
+
+        fetchCounts.clear();
+        final ResourceLoader reloadingLoader = new ReloadingResourceLoader(sourceFolder.getRoot(),
+            createCountingLoader());
+        fetch(reloadingLoader, "http://example.com/things.yaml");
+        fetch(reloadingLoader, "http://example.com/things.yaml");
+        assertThat(fetchCounts.get("http://example.com/things.yaml"), is(2));
+    }
+
+    private ResourceLoader createCountingLoader()
+    {
+        final ResourceLoader fileLoader = new FileResourceLoader(sourceFolder.getRoot());
+
+        return new ResourceLoader()
+        {
+            @Override
+            public InputStream fetchResource(final String resourceName)
+            {
+                final Integer fetchCount = fetchCounts.get(resourceName);
+                fetchCounts.put(resourceName, fetchCount == null ? 1 : fetchCount + 1);
+
+                final InputStream file = fileLoader.fetchResource(resourceName);
+                return file != null ? file : new ByteArrayInputStream(resourceName.getBytes());
+            }
+        };
+    }
+
+    private static String fetch(final ResourceLoader loader, final String resourceName) throws Exception
+    {
+        return IOUtils.toString(loader.fetchResource(resourceName));
+    }
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright 2013 (c) MuleSoft, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.raml.jaxrs.codegen.core;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.junit.Assert.assertThat;
+
+import org.junit.Test;
+
+public class SchemaDigestsTestCase
+{
+    private static final String SCHEMA = "{\"type\": \"object\", "
+                                         + "\"properties\": {\"name\": {\"type\": \"string\"}, "
+                                         + "\"age\": {\"type\": \"integer\"}}}";
+
+    @Test
+    public void formattingAndKeyOrderAreIgnored()
+    {
+        final String reformattedSchema = "{\n  \"properties\": {\n    \"age\": {\"type\": \"integer\"},\n"
+                                         + "    \"name\": {\"type\": \"string\"}\n  },\n"
+                                         + "  \"type\": \"object\"\n}\n";
+
+        assertThat(SchemaDigests.digest(reformattedSchema), is(equalTo(SchemaDigests.digest(SCHEMA))));
+        assertThat(SchemaDigests.digest("not json"), is(equalTo(SchemaDigests.digest(" not json\n"))));
+    }
+
+    @Test
+    public void differentSchemasHaveDifferentDigests()
+    {
+        // these two strings have the same hash code
+        assertThat("Aa".hashCode(), is("BB".hashCode()));
+        assertThat(SchemaDigests.digest("{\"title\": \"Aa\"}"),
+            is(not(equalTo(SchemaDigests.digest("{\"title\": \"BB\"}")))));
+        assertThat(SchemaDigests.digest(SCHEMA.replace("integer", "number")),
+            is(not(equalTo(SchemaDigests.digest(SCHEMA)))));
+    }
+}
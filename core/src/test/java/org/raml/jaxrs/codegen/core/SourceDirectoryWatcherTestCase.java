@@ -0,0 +1,103 @@
+/*
+ * Copyright 2013 (c) MuleSoft, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.raml.jaxrs.codegen.core;
+
+import static org.hamcrest.Matchers.contains;
+import static org.junit.Assert.assertThat;
+
+import java.io.File;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class SourceDirectoryWatcherTestCase
+{
+    @Rule
+    public TemporaryFolder sourceFolder = new TemporaryFolder();
+
+    @Rule
+    public TemporaryFolder otherFolder = new TemporaryFolder();
+
+    @Test(timeout = 10000L)
+    public void changesAreReportedOnceSettled() throws Exception
+    {
+        final SourceDirectoryWatcher watcher = new SourceDirectoryWatcher(sourceFolder.getRoot(), 10L, 200L);
+
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        try
+        {
+            final Future<Set<File>> changes = executor.submit(new Callable<Set<File>>()
+            {
+                @Override
+                public Set<File> call() throws Exception
+                {
+                    return watcher.awaitChanges();
+                }
+            });
+
+            final File includedFile = new File(sourceFolder.getRoot(), "things.yaml");
+            FileUtils.writeStringToFile(includedFile, "displayName: Things\n");
+            Thread.sleep(50L);
+            FileUtils.writeStringToFile(new File(sourceFolder.getRoot(), ".things.yaml.swp"), "");
+            FileUtils.writeStringToFile(includedFile, "displayName: Stuff\n");
+
+            assertThat(changes.get(5L, TimeUnit.SECONDS), contains(includedFile));
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test(timeout = 10000L)
+    public void watchedFilesOutsideOfTheSourceDirectoryAreReported() throws Exception
+    {
+        final File ramlFile = otherFolder.newFile("api.raml").getCanonicalFile();
+        final SourceDirectoryWatcher watcher = new SourceDirectoryWatcher(sourceFolder.getRoot(), 10L, 200L);
+        watcher.watchFile(ramlFile);
+
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        try
+        {
+            final Future<Set<File>> changes = executor.submit(new Callable<Set<File>>()
+            {
+                @Override
+                public Set<File> call() throws Exception
+                {
+                    return watcher.awaitChanges();
+                }
+            });
+
+            // the other files of its directory are not watched
+            FileUtils.writeStringToFile(new File(otherFolder.getRoot(), "other.raml"), "");
+            FileUtils.writeStringToFile(ramlFile, "#%RAML 0.8\n");
+
+            assertThat(changes.get(5L, TimeUnit.SECONDS), contains(ramlFile));
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+    }
+}
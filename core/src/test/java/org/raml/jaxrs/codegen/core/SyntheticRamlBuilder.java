@@ -0,0 +1,382 @@
+/*
+ * Copyright 2013 (c) MuleSoft, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.raml.jaxrs.codegen.core;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang.Validate;
+
+/**
+ * Builds valid RAML documents of arbitrary size, to exercise the generator on contracts much larger
+ * than the bundled ones. The same settings always produce the same document.
+ */
+public class SyntheticRamlBuilder
+{
+    public static final String MAIN_FILE_NAME = "api.raml";
+
+    private static final String[] ACTIONS = {"get", "post", "put", "delete", "patch"};
+    private static final String[] MIME_TYPES = {"application/json", "text/plain", "application/xml",
+        "application/octet-stream", "text/csv"};
+    private static final int[] RESPONSE_CODES = {200, 201, 202, 204, 400, 401, 403, 404, 409, 500};
+
+    private int resources = 10;
+    private int nestingDepth = 0;
+    private int actionsPerResource = 2;
+    private int uriParameters = 1;
+    private int queryParameters = 0;
+    private int headers = 0;
+    private int responseCodes = 1;
+    private int mimeTypes = 1;
+    private int schemas = 5;
+    private boolean inlineSchemas = false;
+    private boolean includes = false;
+
+    /**
+     * @param resources the number of top-level resources.
+     */
+    public SyntheticRamlBuilder withResources(final int resources)
+    {
+        Validate.isTrue(resources > 0, "resources must be greater than zero");
+
+        this.resources = resources;
+        return this;
+    }
+
+    /**
+     * @param nestingDepth the number of levels of resources nested in each top-level resource, each
+     *            level having a single resource.
+     */
+    public SyntheticRamlBuilder withNestingDepth(final int nestingDepth)
+    {
+        Validate.isTrue(nestingDepth >= 0, "nestingDepth can't be negative");
+
+        this.nestingDepth = nestingDepth;
+        return this;
+    }
+
+    /**
+     * @param actionsPerResource the number of actions of each resource, at most 5.
+     */
+    public SyntheticRamlBuilder withActionsPerResource(final int actionsPerResource)
+    {
+        Validate.isTrue((actionsPerResource > 0) && (actionsPerResource <= ACTIONS.length),
+            "actionsPerResource must be between 1 and " + ACTIONS.length);
+
+        this.actionsPerResource = actionsPerResource;
+        return this;
+    }
+
+    /**
+     * @param uriParameters the number of URI parameters of each nested resource.
+     */
+    public SyntheticRamlBuilder withUriParameters(final int uriParameters)
+    {
+        Validate.isTrue(uriParameters > 0, "uriParameters must be greater than zero");
+
+        this.uriParameters = uriParameters;
+        return this;
+    }
+
+    /**
+     * @param queryParameters the number of query parameters of each action.
+     */
+    public SyntheticRamlBuilder withQueryParameters(final int queryParameters)
+    {
+        Validate.isTrue(queryParameters >= 0, "queryParameters can't be negative");
+
+        this.queryParameters = queryParameters;
+        return this;
+    }
+
+    /**
+     * @param headers the number of headers of each action.
+     */
+    public SyntheticRamlBuilder withHeaders(final int headers)
+    {
+        Validate.isTrue(headers >= 0, "headers can't be negative");
+
+        this.headers = headers;
+        return this;
+    }
+
+    /**
+     * @param responseCodes the number of responses of each action, at most 10.
+     */
+    public SyntheticRamlBuilder withResponseCodes(final int responseCodes)
+    {
+        Validate.isTrue((responseCodes > 0) && (responseCodes <= RESPONSE_CODES.length),
+            "responseCodes must be between 1 and " + RESPONSE_CODES.length);
+
+        this.responseCodes = responseCodes;
+        return this;
+    }
+
+    /**
+     * @param mimeTypes the number of mime types of each body, at most 5. Only JSON bodies have a
+     *            schema.
+     */
+    public SyntheticRamlBuilder withMimeTypes(final int mimeTypes)
+    {
+        Validate.isTrue((mimeTypes > 0) && (mimeTypes <= MIME_TYPES.length),
+            "mimeTypes must be between 1 and " + MIME_TYPES.length);
+
+        this.mimeTypes = mimeTypes;
+        return this;
+    }
+
+    /**
+     * @param schemas the number of distinct JSON schemas, shared by the resources in turn. With no
+     *            schema, JSON bodies have no schema.
+     */
+    public SyntheticRamlBuilder withSchemas(final int schemas)
+    {
+        Validate.isTrue(schemas >= 0, "schemas can't be negative");
+
+        this.schemas = schemas;
+        return this;
+    }
+
+    /**
+     * @param inlineSchemas whether bodies define their schema instead of referring to a global one.
+     */
+    public SyntheticRamlBuilder withInlineSchemas(final boolean inlineSchemas)
+    {
+        this.inlineSchemas = inlineSchemas;
+        return this;
+    }
+
+    /**
+     * @param includes whether each top-level resource and each schema is defined in its own included
+     *            file, resources including their schemas. Such documents must be written with
+     *            {@link #writeTo(File)}.
+     */
+    public SyntheticRamlBuilder withIncludes(final boolean includes)
+    {
+        this.includes = includes;
+        return this;
+    }
+
+    /**
+     * @return the RAML document, which can't include other files.
+     */
+    public String build()
+    {
+        Validate.isTrue(!includes, "documents with includes must be written with writeTo");
+
+        return buildMainDocument();
+    }
+
+    /**
+     * Writes the RAML document and the files it includes, all in the same directory so includes
+     * resolve relative to the document as well as to the directory.
+     *
+     * @return the main RAML file.
+     */
+    public File writeTo(final File directory) throws IOException
+    {
+        final File mainFile = new File(directory, MAIN_FILE_NAME);
+        FileUtils.writeStringToFile(mainFile, buildMainDocument());
+
+        if (includes)
+        {
+            for (int i = 0; i < schemas; i++)
+            {
+                FileUtils.writeStringToFile(new File(directory, getSchemaFileName(i)), buildSchema(i));
+            }
+
+            for (int i = 0; i < resources; i++)
+            {
+                final StringBuilder resource = new StringBuilder();
+                appendResourceContent(resource, "", i, 0);
+                FileUtils.writeStringToFile(new File(directory, "resource" + i + ".yaml"),
+                    resource.toString());
+            }
+        }
+
+        return mainFile;
+    }
+
+    private String buildMainDocument()
+    {
+        final StringBuilder raml = new StringBuilder("#%RAML 0.8\n---\ntitle: Synthetic API\n");
+
+        if ((schemas > 0) && (!inlineSchemas))
+        {
+            raml.append("schemas:\n");
+            for (int i = 0; i < schemas; i++)
+            {
+                raml.append("  - item").append(i).append(": ");
+                if (includes)
+                {
+                    raml.append("!include ").append(getSchemaFileName(i)).append('\n');
+                }
+                else
+                {
+                    raml.append('\'').append(buildSchema(i)).append("'\n");
+                }
+            }
+        }
+
+        for (int i = 0; i < resources; i++)
+        {
+            raml.append("/resource").append(i).append(':');
+            if (includes)
+            {
+                raml.append(" !include resource").append(i).append(".yaml\n");
+            }
+            else
+            {
+                raml.append('\n');
+                appendResourceContent(raml, "  ", i, 0);
+            }
+        }
+
+        return raml.toString();
+    }
+
+    private void appendResourceContent(final StringBuilder raml,
+                                       final String indent,
+                                       final int resource,
+                                       final int level)
+    {
+        if (level > 0)
+        {
+            raml.append(indent).append("uriParameters:\n");
+            for (int i = 0; i < uriParameters; i++)
+            {
+                raml.append(indent).append("  ").append(getUriParameterName(level, i)).append(":\n");
+                raml.append(indent).append("    type: ").append(getParameterType(i)).append('\n');
+            }
+        }
+
+        for (int i = 0; i < actionsPerResource; i++)
+        {
+            appendAction(raml, indent, ACTIONS[i], resource);
+        }
+
+        if (level < nestingDepth)
+        {
+            raml.append(indent).append('/');
+            for (int i = 0; i < uriParameters; i++)
+            {
+                raml.append(i == 0 ? "" : "-").append('{').append(getUriParameterName(level + 1, i))
+                    .append('}');
+            }
+            raml.append(":\n");
+            appendResourceContent(raml, indent + "  ", resource, level + 1);
+        }
+    }
+
+    private void appendAction(final StringBuilder raml,
+                              final String indent,
+                              final String action,
+                              final int resource)
+    {
+        raml.append(indent).append(action).append(":\n");
+
+        if (headers > 0)
+        {
+            raml.append(indent).append("  headers:\n");
+            for (int i = 0; i < headers; i++)
+            {
+                raml.append(indent).append("    X-Header-").append(i).append(":\n");
+                raml.append(indent).append("      description: Header ").append(i).append('\n');
+            }
+        }
+
+        if (queryParameters > 0)
+        {
+            raml.append(indent).append("  queryParameters:\n");
+            for (int i = 0; i < queryParameters; i++)
+            {
+                raml.append(indent).append("    query").append(i).append(":\n");
+                raml.append(indent).append("      type: ").append(getParameterType(i)).append('\n');
+            }
+        }
+
+        final boolean hasRequestBody = "post".equals(action) || "put".equals(action)
+                                       || "patch".equals(action);
+        if (hasRequestBody)
+        {
+            raml.append(indent).append("  body:\n");
+            appendBody(raml, indent + "    ", resource);
+        }
+
+        raml.append(indent).append("  responses:\n");
+        for (int i = 0; i < responseCodes; i++)
+        {
+            raml.append(indent).append("    ").append(RESPONSE_CODES[i]).append(":\n");
+            if ((!"delete".equals(action)) && (RESPONSE_CODES[i] != 204))
+            {
+                raml.append(indent).append("      body:\n");
+                appendBody(raml, indent + "        ", resource);
+            }
+        }
+    }
+
+    private void appendBody(final StringBuilder raml, final String indent, final int resource)
+    {
+        for (int i = 0; i < mimeTypes; i++)
+        {
+            raml.append(indent).append(MIME_TYPES[i]).append(":\n");
+
+            if ((i == 0) && (schemas > 0))
+            {
+                raml.append(indent).append("  schema: ").append(getSchemaReference(resource % schemas))
+                    .append('\n');
+            }
+        }
+    }
+
+    private String getSchemaReference(final int schema)
+    {
+        if (!inlineSchemas)
+        {
+            return "item" + schema;
+        }
+        else if (includes)
+        {
+            return "!include " + getSchemaFileName(schema);
+        }
+        else
+        {
+            return "'" + buildSchema(schema) + "'";
+        }
+    }
+
+    private static String buildSchema(final int schema)
+    {
+        return "{\"type\": \"object\", \"properties\": {\"id\": {\"type\": \"string\"}, \"value" + schema
+               + "\": {\"type\": \"integer\"}}}";
+    }
+
+    private static String getSchemaFileName(final int schema)
+    {
+        return "item" + schema + ".json";
+    }
+
+    private static String getParameterType(final int index)
+    {
+        return index % 2 == 0 ? "string" : "integer";
+    }
+
+    private static String getUriParameterName(final int level, final int index)
+    {
+        return "level" + level + "Id" + index;
+    }
+}
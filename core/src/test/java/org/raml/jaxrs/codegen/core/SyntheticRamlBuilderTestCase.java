@@ -0,0 +1,87 @@
+/*
+ * Copyright 2013 (c) MuleSoft, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.raml.jaxrs.codegen.core;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.hasItems;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.StringReader;
+import java.util.Set;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class SyntheticRamlBuilderTestCase
+{
+    private static final String TEST_BASE_PACKAGE = "org.raml.jaxrs.test";
+
+    @Rule
+    public TemporaryFolder sourceFolder = new TemporaryFolder();
+
+    @Rule
+    public TemporaryFolder inlineOutputFolder = new TemporaryFolder();
+
+    @Rule
+    public TemporaryFolder includeOutputFolder = new TemporaryFolder();
+
+    @Test
+    public void includedAndInlineDocumentsGenerateTheSameCode() throws Exception
+    {
+        final SyntheticRamlBuilder builder = new SyntheticRamlBuilder().withResources(3)
+            .withNestingDepth(2)
+            .withActionsPerResource(5)
+            .withUriParameters(2)
+            .withQueryParameters(2)
+            .withHeaders(2)
+            .withResponseCodes(4)
+            .withMimeTypes(3)
+            .withSchemas(2)
+            .withInlineSchemas(true);
+
+        final Set<String> inlineFiles = new Generator().run(new StringReader(builder.build()),
+            createConfiguration(inlineOutputFolder.getRoot()));
+
+        final File mainFile = builder.withIncludes(true).writeTo(sourceFolder.getRoot());
+        final Set<String> includeFiles = new Generator().run(new FileReader(mainFile),
+            createConfiguration(includeOutputFolder.getRoot()));
+
+        assertThat(includeFiles, is(inlineFiles));
+        assertThat(inlineFiles, hasItems("org/raml/jaxrs/test/resource/Resource0.java",
+            "org/raml/jaxrs/test/resource/Resource2.java"));
+
+        final String resource = FileUtils.readFileToString(new File(inlineOutputFolder.getRoot(),
+            "org/raml/jaxrs/test/resource/Resource1.java"));
+        assertThat(resource, containsString("@Path(\"{level1Id0}-{level1Id1}/{level2Id0}-{level2Id1}\")"));
+        assertThat(resource, containsString("@HeaderParam(\"X-Header-1\")"));
+        assertThat(resource, containsString("@QueryParam(\"query1\")"));
+        assertThat(resource, containsString("@Consumes(\"application/xml\")"));
+    }
+
+    private Configuration createConfiguration(final File outputDirectory)
+    {
+        final Configuration configuration = new Configuration();
+        configuration.setOutputDirectory(outputDirectory);
+        configuration.setBasePackageName(TEST_BASE_PACKAGE);
+        configuration.setSourceDirectory(sourceFolder.getRoot());
+        return configuration;
+    }
+}
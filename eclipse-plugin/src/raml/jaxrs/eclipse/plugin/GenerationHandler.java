@@ -16,16 +16,16 @@
 package raml.jaxrs.eclipse.plugin;
 
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
 
 import org.eclipse.core.commands.AbstractHandler;
 import org.eclipse.core.commands.ExecutionEvent;
 import org.eclipse.core.commands.ExecutionException;
 import org.eclipse.core.resources.IContainer;
 import org.eclipse.core.resources.IFile;
-import org.eclipse.core.resources.IResource;
-import org.eclipse.core.runtime.NullProgressMonitor;
 import org.eclipse.jface.dialogs.Dialog;
 import org.eclipse.jface.viewers.ISelection;
 import org.eclipse.jface.viewers.IStructuredSelection;
@@ -35,7 +35,6 @@ import org.eclipse.ui.internal.Workbench;
 import org.jsonschema2pojo.AnnotationStyle;
 import org.raml.jaxrs.codegen.core.Configuration;
 import org.raml.jaxrs.codegen.core.Configuration.JaxrsVersion;
-import org.raml.jaxrs.codegen.core.Generator;
 
 public class GenerationHandler extends AbstractHandler{
 
@@ -45,10 +44,15 @@ public class GenerationHandler extends AbstractHandler{
 		ISelection selection = Workbench.getInstance().getActiveWorkbenchWindow().getActivePage().getSelection();
 		if(selection instanceof IStructuredSelection){
 			IStructuredSelection sSelection = (IStructuredSelection) selection;
-			Object element = sSelection.getFirstElement();
-			if(element instanceof IFile){
-				IFile file = (IFile) element;
-				process(file);
+			List<IFile> files = new ArrayList<IFile>();
+			for(Iterator<?> it = sSelection.iterator(); it.hasNext();){
+				Object element = it.next();
+				if(element instanceof IFile){
+					files.add((IFile) element);
+				}
+			}
+			if(!files.isEmpty()){
+				process(files);
 			}
 			return null;
 			
@@ -56,10 +60,10 @@ public class GenerationHandler extends AbstractHandler{
 		return null;
 	}
 
-	private void process(IFile file) {
+	private void process(List<IFile> files) {
 		
 		Shell activeShell = Display.getCurrent().getActiveShell();
-		UIConfiguration uiConfig = prepareUIConfiguration(file);
+		UIConfiguration uiConfig = prepareUIConfiguration(files.get(0));
 		ConfigurationDialog dialog = new ConfigurationDialog(activeShell, uiConfig);
 		
 		if(dialog.open() != Dialog.OK ){
@@ -72,15 +76,9 @@ public class GenerationHandler extends AbstractHandler{
 		
 		Configuration configuration = prepareConfiguraton(uiConfig);
 		
-		try {
-			File ramlOSFile = uiConfig.getRamlFile().getLocation().toFile();
-			InputStreamReader ramlReader = new InputStreamReader( new FileInputStream(ramlOSFile) );
-			new Generator().run(ramlReader, configuration);		
-			uiConfig.getDstFolder().refreshLocal( IResource.DEPTH_ONE, new NullProgressMonitor() );
-			
-		} catch (Exception e) {
-			e.printStackTrace();
-		}
+		// the dialog only lets one file be changed
+		List<IFile> ramlFiles = files.size() == 1 ? Collections.singletonList(uiConfig.getRamlFile()) : files;
+		new GenerationJob(ramlFiles, configuration, uiConfig.getDstFolder()).schedule();
 	}
 
 	private Configuration prepareConfiguraton(UIConfiguration uiConfig)
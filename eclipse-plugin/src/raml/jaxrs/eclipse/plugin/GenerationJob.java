@@ -0,0 +1,198 @@
+/*
+ * Copyright 2013 (c) MuleSoft, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package raml.jaxrs.eclipse.plugin;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.eclipse.core.resources.IContainer;
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IWorkspace;
+import org.eclipse.core.resources.IWorkspaceRunnable;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.MultiStatus;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.Path;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+import org.raml.jaxrs.codegen.core.BatchGenerationException;
+import org.raml.jaxrs.codegen.core.BatchGenerator;
+import org.raml.jaxrs.codegen.core.Configuration;
+import org.raml.jaxrs.codegen.core.GenerationListener;
+import org.raml.jaxrs.codegen.core.GenerationPhase;
+
+/**
+ * Generates the selected RAML files in the background, several at once, then refreshes the output
+ * files actually written or deleted.
+ */
+public class GenerationJob extends Job {
+
+	private final List<IFile> ramlFiles;
+
+	private final Configuration configuration;
+
+	private final IContainer dstFolder;
+
+	public GenerationJob(List<IFile> ramlFiles, Configuration configuration, IContainer dstFolder) {
+		super("Generating JAX-RS classes from RAML");
+		this.ramlFiles = ramlFiles;
+		this.configuration = configuration;
+		this.dstFolder = dstFolder;
+		setUser(true);
+	}
+
+	@Override
+	protected IStatus run(IProgressMonitor monitor) {
+		
+		List<File> ramlOSFiles = new ArrayList<File>();
+		for(IFile ramlFile : ramlFiles){
+			ramlOSFiles.add(ramlFile.getLocation().toFile());
+		}
+		
+		// the number of resources is only known once the files are parsed
+		monitor.beginTask(getName(), IProgressMonitor.UNKNOWN);
+		ChangedFilesListener changedFiles = new ChangedFilesListener(monitor);
+		
+		IStatus status = Status.OK_STATUS;
+		try {
+			BatchGenerator batchGenerator = new BatchGenerator(
+					Math.min(ramlOSFiles.size(), Runtime.getRuntime().availableProcessors()));
+			// the destination folder is often a source folder: only write generated files to it, never delete
+			batchGenerator.setPruning(false);
+			batchGenerator.addListener(changedFiles);
+			batchGenerator.run(ramlOSFiles, configuration);
+			
+		} catch (BatchGenerationException e) {
+			if(monitor.isCanceled()){
+				status = Status.CANCEL_STATUS;
+			} else {
+				status = toStatus(e);
+			}
+		}
+		
+		// files generated before a cancellation are refreshed as well
+		try {
+			refresh(changedFiles.getPaths(), monitor);
+		} catch (CoreException e) {
+			if(status.isOK()){
+				status = e.getStatus();
+			}
+		} finally {
+			monitor.done();
+		}
+		return status;
+	}
+
+	private IStatus toStatus(BatchGenerationException e) {
+		
+		MultiStatus status = new MultiStatus(Activator.PLUGIN_ID, IStatus.ERROR,
+				"Failed to generate JAX-RS classes from RAML", e);
+		for(Entry<File, Throwable> failure : e.getFailures().entrySet()){
+			status.add(new Status(IStatus.ERROR, Activator.PLUGIN_ID,
+					"Error generating Java classes from: " + failure.getKey(), failure.getValue()));
+		}
+		return status;
+	}
+
+	private void refresh(final Set<String> paths, IProgressMonitor monitor) throws CoreException {
+		
+		if(paths.isEmpty()){
+			return;
+		}
+		
+		// one batch so the workspace notifies its listeners only once
+		IWorkspace workspace = ResourcesPlugin.getWorkspace();
+		workspace.run(new IWorkspaceRunnable() {
+			
+			@Override
+			public void run(IProgressMonitor monitor) throws CoreException {
+				for(String path : paths){
+					refresh(dstFolder.getFile(Path.fromOSString(path)), monitor);
+				}
+			}
+		}, workspace.getRuleFactory().refreshRule(dstFolder), IWorkspace.AVOID_UPDATE, null);
+	}
+
+	private void refresh(IFile file, IProgressMonitor monitor) throws CoreException {
+		
+		// the folders the workspace doesn't know yet are refreshed whole
+		IResource resource = file;
+		while(!resource.getParent().equals(dstFolder) && !resource.getParent().exists()){
+			resource = resource.getParent();
+		}
+		resource.refreshLocal(resource == file ? IResource.DEPTH_ZERO : IResource.DEPTH_INFINITE, monitor);
+	}
+
+	/**
+	 * Reports progress per resource, aborts generation once the job is canceled and collects the
+	 * output files written or deleted.
+	 */
+	private static class ChangedFilesListener implements GenerationListener {
+
+		private final IProgressMonitor monitor;
+
+		private final Set<String> paths = new TreeSet<String>();
+
+		ChangedFilesListener(IProgressMonitor monitor) {
+			this.monitor = monitor;
+		}
+
+		@Override
+		public void phaseStarted(GenerationPhase phase, String subject) {
+			if(monitor.isCanceled()){
+				throw new OperationCanceledException();
+			}
+		}
+
+		@Override
+		public synchronized void phaseCompleted(GenerationPhase phase, String subject) {
+			if(phase == GenerationPhase.RESOURCE_INTERFACE){
+				monitor.subTask("Generated resource: " + subject);
+				monitor.worked(1);
+			}
+		}
+
+		@Override
+		public void classGenerated(String className, int methodCount) {
+		}
+
+		@Override
+		public void fileGenerated(String path) {
+		}
+
+		@Override
+		public synchronized void fileWritten(String path) {
+			paths.add(path);
+		}
+
+		@Override
+		public synchronized void fileDeleted(String path) {
+			paths.add(path);
+		}
+
+		synchronized Set<String> getPaths() {
+			return new TreeSet<String>(paths);
+		}
+	}
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2013 (c) MuleSoft, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.raml.jaxrs.codegen.gradle;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map.Entry;
+
+import org.gradle.api.GradleException;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.workers.WorkAction;
+import org.jsonschema2pojo.AnnotationStyle;
+import org.raml.jaxrs.codegen.core.BatchGenerationException;
+import org.raml.jaxrs.codegen.core.BatchGenerator;
+import org.raml.jaxrs.codegen.core.Configuration;
+import org.raml.jaxrs.codegen.core.Configuration.JaxrsVersion;
+
+/**
+ * Generates all the RAML files of a task with a single {@link BatchGenerator}, so they share the
+ * included resources loaded once, and the schema models when enabled.
+ */
+public abstract class GenerateRamlFilesAction implements WorkAction<GenerateRamlFilesParameters>
+{
+    private static final Logger LOGGER = Logging.getLogger(GenerateRamlFilesAction.class);
+
+    @Override
+    public void execute()
+    {
+        final GenerateRamlFilesParameters parameters = getParameters();
+        final List<File> ramlFiles = new ArrayList<File>(parameters.getRamlFiles().getFiles());
+
+        final Configuration configuration = new Configuration();
+        configuration.setBasePackageName(parameters.getBasePackageName().get());
+        configuration.setJaxrsVersion(JaxrsVersion.fromAlias(parameters.getJaxrsVersion().get()));
+        configuration.setOutputDirectory(parameters.getOutputDirectory().get().getAsFile());
+        configuration.setUseJsr303Annotations(parameters.getUseJsr303Annotations().get());
+        configuration.setJsonMapper(AnnotationStyle.valueOf(parameters.getJsonMapper().get().toUpperCase()));
+        configuration.setJsonMapperConfiguration(parameters.getJsonMapperConfiguration().getOrNull());
+        configuration.setSourceDirectory(parameters.getSourceDirectory().getAsFile().getOrNull());
+        configuration.setResourceThreads(parameters.getResourceThreads().get());
+        configuration.setStreaming(parameters.getStreaming().get());
+        configuration.setAsyncResourceMethods(parameters.getAsyncResourceMethods().get());
+        configuration.setStreamingResponseBuilders(parameters.getStreamingResponseBuilders().get());
+        configuration.setStreamingRequestBodies(parameters.getStreamingRequestBodies().get());
+        configuration.setShareSchemaModels(parameters.getShareSchemaModels().get());
+
+        try
+        {
+            // the task cleans the output directory beforehand
+            final BatchGenerator batchGenerator = new BatchGenerator(parameters.getThreads().get());
+            batchGenerator.setPruning(false);
+            batchGenerator.run(ramlFiles, configuration);
+        }
+        catch (final BatchGenerationException bge)
+        {
+            for (final Entry<File, Throwable> failure : bge.getFailures().entrySet())
+            {
+                LOGGER.error("Error generating Java classes from: " + failure.getKey(), failure.getValue());
+            }
+            throw new GradleException(bge.getMessage(), bge);
+        }
+    }
+}
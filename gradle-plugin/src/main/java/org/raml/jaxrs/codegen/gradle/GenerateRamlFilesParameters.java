@@ -0,0 +1,61 @@
+/*
+ * Copyright 2013 (c) MuleSoft, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.raml.jaxrs.codegen.gradle;
+
+import org.gradle.api.file.ConfigurableFileCollection;
+import org.gradle.api.file.DirectoryProperty;
+import org.gradle.api.provider.MapProperty;
+import org.gradle.api.provider.Property;
+import org.gradle.workers.WorkParameters;
+
+/**
+ * The parameters of the generation of the RAML files of a task.
+ */
+public interface GenerateRamlFilesParameters extends WorkParameters
+{
+    ConfigurableFileCollection getRamlFiles();
+
+    /**
+     * Absent when the source directory doesn't exist.
+     */
+    DirectoryProperty getSourceDirectory();
+
+    DirectoryProperty getOutputDirectory();
+
+    Property<String> getBasePackageName();
+
+    Property<String> getJaxrsVersion();
+
+    Property<Boolean> getUseJsr303Annotations();
+
+    Property<String> getJsonMapper();
+
+    MapProperty<String, String> getJsonMapperConfiguration();
+
+    Property<Integer> getThreads();
+
+    Property<Integer> getResourceThreads();
+
+    Property<Boolean> getStreaming();
+
+    Property<Boolean> getAsyncResourceMethods();
+
+    Property<Boolean> getStreamingResponseBuilders();
+
+    Property<Boolean> getStreamingRequestBodies();
+
+    Property<Boolean> getShareSchemaModels();
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2013 (c) MuleSoft, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.raml.jaxrs.codegen.gradle;
+
+import org.gradle.api.file.ConfigurableFileCollection;
+import org.gradle.api.file.DirectoryProperty;
+import org.gradle.api.provider.MapProperty;
+import org.gradle.api.provider.Property;
+
+/**
+ * The <code>ramlJaxrs</code> extension, providing the defaults of all the
+ * {@link RamlJaxrsCodegenTask}s.
+ */
+public abstract class RamlJaxrsCodegenExtension
+{
+    /**
+     * The directory RAML files and their includes are read from, <code>src/main/raml</code> by
+     * default.
+     */
+    public abstract DirectoryProperty getSourceDirectory();
+
+    /**
+     * The RAML files to generate, by default all the RAML and YAML files in and below the source
+     * directory.
+     */
+    public abstract ConfigurableFileCollection getSourcePaths();
+
+    /**
+     * The directory to generate into, <code>build/generated-sources/raml-jaxrs</code> by default.
+     */
+    public abstract DirectoryProperty getOutputDirectory();
+
+    public abstract Property<String> getBasePackageName();
+
+    /**
+     * The JAX-RS version to generate for: 1.1 or 2.0.
+     */
+    public abstract Property<String> getJaxrsVersion();
+
+    public abstract Property<Boolean> getUseJsr303Annotations();
+
+    /**
+     * The JSON mapper to generate annotations for: jackson1, jackson2, gson or none.
+     */
+    public abstract Property<String> getJsonMapper();
+
+    public abstract MapProperty<String, String> getJsonMapperConfiguration();
+
+    /**
+     * The number of RAML files generated concurrently, the maximum number of workers by default.
+     */
+    public abstract Property<Integer> getThreads();
+
+    /**
+     * The number of threads generating the top-level resources of each RAML file.
+     */
+    public abstract Property<Integer> getResourceThreads();
+
+    /**
+     * Whether to write each top-level resource as soon as it is generated, to bound the heap used by
+     * large RAML files.
+     */
+    public abstract Property<Boolean> getStreaming();
+
+    /**
+     * Whether resource methods should take a suspended <code>AsyncResponse</code>, to resume with
+     * their typed response, instead of returning it. Requires JAX-RS 2.0.
+     */
+    public abstract Property<Boolean> getAsyncResourceMethods();
+
+    /**
+     * Whether response builders taking an entity should also be generated with
+     * <code>StreamingOutput</code>, <code>InputStream</code> and <code>ReadableByteChannel</code>
+     * entity arguments. Their names end with <code>Streaming</code>, e.g. <code>withJsonOKStreaming</code>.
+     */
+    public abstract Property<Boolean> getStreamingResponseBuilders();
+
+    /**
+     * Whether request bodies without a schema should be passed to resource methods as an
+     * <code>InputStream</code>, or a <code>Reader</code> for text media types.
+     */
+    public abstract Property<Boolean> getStreamingRequestBodies();
+
+    /**
+     * Whether the model classes of a JSON schema defined under the same name by several RAML files
+     * should only be generated once.
+     */
+    public abstract Property<Boolean> getShareSchemaModels();
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2013 (c) MuleSoft, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.raml.jaxrs.codegen.gradle;
+
+import org.gradle.api.Plugin;
+import org.gradle.api.Project;
+import org.gradle.api.file.Directory;
+import org.gradle.api.plugins.JavaPlugin;
+import org.gradle.api.provider.Provider;
+import org.gradle.api.tasks.SourceSet;
+import org.gradle.api.tasks.SourceSetContainer;
+import org.gradle.api.tasks.TaskProvider;
+
+/**
+ * Registers the <code>ramlJaxrs</code> extension and the {@value #TASK_NAME} task, whose output is
+ * added to the main Java sources when the Java plug-in is applied.
+ */
+public class RamlJaxrsCodegenPlugin implements Plugin<Project>
+{
+    public static final String EXTENSION_NAME = "ramlJaxrs";
+    public static final String TASK_NAME = "generateRamlJaxrs";
+
+    @Override
+    public void apply(final Project project)
+    {
+        final RamlJaxrsCodegenExtension extension = project.getExtensions().create(EXTENSION_NAME,
+            RamlJaxrsCodegenExtension.class);
+        extension.getSourceDirectory().convention(
+            project.getLayout().getProjectDirectory().dir("src/main/raml"));
+        extension.getOutputDirectory().convention(
+            project.getLayout().getBuildDirectory().dir("generated-sources/raml-jaxrs"));
+        extension.getJaxrsVersion().convention("1.1");
+        extension.getUseJsr303Annotations().convention(false);
+        extension.getJsonMapper().convention("jackson1");
+        extension.getThreads().convention(project.getGradle().getStartParameter().getMaxWorkerCount());
+        extension.getResourceThreads().convention(1);
+        extension.getStreaming().convention(false);
+        extension.getAsyncResourceMethods().convention(false);
+        extension.getStreamingResponseBuilders().convention(false);
+        extension.getStreamingRequestBodies().convention(false);
+        extension.getShareSchemaModels().convention(false);
+
+        final TaskProvider<RamlJaxrsCodegenTask> generateTask = project.getTasks().register(TASK_NAME,
+            RamlJaxrsCodegenTask.class, task -> {
+                task.setGroup("build");
+                task.setDescription("Generates JAX-RS interfaces and model classes from RAML files.");
+
+                task.getSourceDirectory().convention(extension.getSourceDirectory());
+                task.getSourcePaths().from(extension.getSourcePaths());
+                task.getOutputDirectory().convention(extension.getOutputDirectory());
+                task.getBasePackageName().convention(extension.getBasePackageName());
+                task.getJaxrsVersion().convention(extension.getJaxrsVersion());
+                task.getUseJsr303Annotations().convention(extension.getUseJsr303Annotations());
+                task.getJsonMapper().convention(extension.getJsonMapper());
+                task.getJsonMapperConfiguration().convention(extension.getJsonMapperConfiguration());
+                task.getThreads().convention(extension.getThreads());
+                task.getResourceThreads().convention(extension.getResourceThreads());
+                task.getStreaming().convention(extension.getStreaming());
+                task.getAsyncResourceMethods().convention(extension.getAsyncResourceMethods());
+                task.getStreamingResponseBuilders().convention(extension.getStreamingResponseBuilders());
+                task.getStreamingRequestBodies().convention(extension.getStreamingRequestBodies());
+                task.getShareSchemaModels().convention(extension.getShareSchemaModels());
+            });
+
+        project.getPlugins().withType(JavaPlugin.class, javaPlugin -> {
+            final Provider<Directory> generatedSources = generateTask.flatMap(
+                RamlJaxrsCodegenTask::getOutputDirectory);
+            project.getExtensions()
+                .getByType(SourceSetContainer.class)
+                .getByName(SourceSet.MAIN_SOURCE_SET_NAME)
+                .getJava()
+                .srcDir(generatedSources);
+        });
+    }
+}
@@ -0,0 +1,199 @@
+/*
+ * Copyright 2013 (c) MuleSoft, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.raml.jaxrs.codegen.gradle;
+
+import java.io.File;
+import java.util.Set;
+
+import javax.inject.Inject;
+
+import org.gradle.api.DefaultTask;
+import org.gradle.api.GradleException;
+import org.gradle.api.file.ConfigurableFileCollection;
+import org.gradle.api.file.DirectoryProperty;
+import org.gradle.api.file.FileCollection;
+import org.gradle.api.file.FileSystemOperations;
+import org.gradle.api.model.ObjectFactory;
+import org.gradle.api.provider.MapProperty;
+import org.gradle.api.provider.Property;
+import org.gradle.api.tasks.CacheableTask;
+import org.gradle.api.tasks.IgnoreEmptyDirectories;
+import org.gradle.api.tasks.Input;
+import org.gradle.api.tasks.InputFiles;
+import org.gradle.api.tasks.Internal;
+import org.gradle.api.tasks.Optional;
+import org.gradle.api.tasks.OutputDirectory;
+import org.gradle.api.tasks.PathSensitive;
+import org.gradle.api.tasks.PathSensitivity;
+import org.gradle.api.tasks.TaskAction;
+import org.gradle.workers.WorkQueue;
+import org.gradle.workers.WorkerExecutor;
+
+/**
+ * Generates JAX-RS interfaces and model classes from RAML files. The whole source directory is an
+ * input, so changing an included resource makes the task out of date, and the output is cacheable
+ * as the generated code only depends on the declared inputs. All the RAML files are generated by a
+ * single work item, so they share the included resources and schema models, independent files
+ * being generated in parallel up to the configured number of threads.
+ */
+@CacheableTask
+public abstract class RamlJaxrsCodegenTask extends DefaultTask
+{
+    /**
+     * The directory the RAML files and their includes are read from, which doesn't have to exist when
+     * the RAML files are listed by the source paths. Its content is tracked by
+     * {@link #getSourceFiles()}.
+     */
+    @Internal
+    public abstract DirectoryProperty getSourceDirectory();
+
+    /**
+     * The RAML files to generate, all the RAML and YAML files in and below the source directory if
+     * empty.
+     */
+    @Internal
+    public abstract ConfigurableFileCollection getSourcePaths();
+
+    @OutputDirectory
+    public abstract DirectoryProperty getOutputDirectory();
+
+    @Input
+    public abstract Property<String> getBasePackageName();
+
+    @Input
+    public abstract Property<String> getJaxrsVersion();
+
+    @Input
+    public abstract Property<Boolean> getUseJsr303Annotations();
+
+    @Input
+    public abstract Property<String> getJsonMapper();
+
+    @Input
+    @Optional
+    public abstract MapProperty<String, String> getJsonMapperConfiguration();
+
+    @Input
+    public abstract Property<Boolean> getAsyncResourceMethods();
+
+    @Input
+    public abstract Property<Boolean> getStreamingResponseBuilders();
+
+    @Input
+    public abstract Property<Boolean> getStreamingRequestBodies();
+
+    @Input
+    public abstract Property<Boolean> getShareSchemaModels();
+
+    /**
+     * Doesn't change the generated code, so isn't an input.
+     */
+    @Internal
+    public abstract Property<Integer> getThreads();
+
+    /**
+     * Doesn't change the generated code, so isn't an input.
+     */
+    @Internal
+    public abstract Property<Integer> getResourceThreads();
+
+    /**
+     * Doesn't change the generated code, so isn't an input.
+     */
+    @Internal
+    public abstract Property<Boolean> getStreaming();
+
+    @Inject
+    protected abstract WorkerExecutor getWorkerExecutor();
+
+    @Inject
+    protected abstract FileSystemOperations getFileSystemOperations();
+
+    @Inject
+    protected abstract ObjectFactory getObjectFactory();
+
+    /**
+     * @return the files of the source directory, none if it doesn't exist.
+     */
+    @InputFiles
+    @PathSensitive(PathSensitivity.RELATIVE)
+    @IgnoreEmptyDirectories
+    public FileCollection getSourceFiles()
+    {
+        if (!getSourceDirectory().isPresent())
+        {
+            return getObjectFactory().fileCollection();
+        }
+
+        return getSourceDirectory().getAsFileTree();
+    }
+
+    /**
+     * @return the RAML files actually generated.
+     */
+    @InputFiles
+    @PathSensitive(PathSensitivity.RELATIVE)
+    public FileCollection getRamlFiles()
+    {
+        if (!getSourcePaths().isEmpty())
+        {
+            return getSourcePaths();
+        }
+
+        return getSourceFiles().getAsFileTree().matching(pattern -> pattern.include("**/*.raml", "**/*.yaml"));
+    }
+
+    @TaskAction
+    public void generate()
+    {
+        final Set<File> ramlFiles = getRamlFiles().getFiles();
+        final File sourceDirectory = getSourceDirectory().getAsFile().getOrNull();
+        if (ramlFiles.isEmpty())
+        {
+            getLogger().warn("No RAML file found in: " + sourceDirectory);
+        }
+
+        // the generated files are not tracked one by one: start afresh so none is stale
+        getFileSystemOperations().delete(spec -> spec.delete(getOutputDirectory()));
+        final File outputDirectory = getOutputDirectory().get().getAsFile();
+        if (!outputDirectory.mkdirs())
+        {
+            throw new GradleException("Failed to create directory: " + outputDirectory);
+        }
+
+        final WorkQueue workQueue = getWorkerExecutor().noIsolation();
+        workQueue.submit(GenerateRamlFilesAction.class, parameters -> {
+            parameters.getRamlFiles().from(ramlFiles);
+            if ((sourceDirectory != null) && sourceDirectory.isDirectory())
+            {
+                parameters.getSourceDirectory().set(sourceDirectory);
+            }
+            parameters.getOutputDirectory().set(getOutputDirectory());
+            parameters.getBasePackageName().set(getBasePackageName());
+            parameters.getJaxrsVersion().set(getJaxrsVersion());
+            parameters.getUseJsr303Annotations().set(getUseJsr303Annotations());
+            parameters.getJsonMapper().set(getJsonMapper());
+            parameters.getJsonMapperConfiguration().set(getJsonMapperConfiguration());
+            parameters.getThreads().set(getThreads());
+            parameters.getResourceThreads().set(getResourceThreads());
+            parameters.getStreaming().set(getStreaming());
+            parameters.getAsyncResourceMethods().set(getAsyncResourceMethods());
+            parameters.getStreamingResponseBuilders().set(getStreamingResponseBuilders());
+            parameters.getStreamingRequestBodies().set(getStreamingRequestBodies());
+            parameters.getShareSchemaModels().set(getShareSchemaModels());
+        });
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright 2013 (c) MuleSoft, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.raml.jaxrs.codegen.gradle;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.gradle.testkit.runner.BuildResult;
+import org.gradle.testkit.runner.GradleRunner;
+import org.gradle.testkit.runner.TaskOutcome;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class RamlJaxrsCodegenPluginTestCase
+{
+    private static final String TASK_PATH = ":" + RamlJaxrsCodegenPlugin.TASK_NAME;
+
+    @Rule
+    public TemporaryFolder projectFolder = new TemporaryFolder();
+
+    @Test
+    public void generatesIncrementallyWithTheConfigurationCache() throws Exception
+    {
+        // a build cache of its own, so the first build can't be served from the cache
+        write("settings.gradle", "rootProject.name = 'test'\n"
+                                 + "buildCache {\n    local {\n        directory = 'build-cache'\n    }\n}\n");
+        write("build.gradle", "plugins {\n    id 'java'\n    id 'org.raml.jaxrs-codegen'\n}\n"
+                              + "ramlJaxrs {\n    basePackageName = 'org.raml.jaxrs.test'\n"
+                              + "    sourcePaths.from('src/main/raml/api.raml', 'src/main/raml/other.raml')\n}\n");
+        write("src/main/raml/api.raml", "#%RAML 0.8\n---\ntitle: Test\n/things: !include includes/things.yaml\n"
+                                        + "/stuff:\n  get:\n");
+        write("src/main/raml/includes/things.yaml", "displayName: Things\nget:\n");
+        write("src/main/raml/other.raml", "#%RAML 0.8\n---\ntitle: Other\n/others:\n  get:\n");
+
+        assertThat(build().task(TASK_PATH).getOutcome(), is(TaskOutcome.SUCCESS));
+        final File things = new File(projectFolder.getRoot(),
+            "build/generated-sources/raml-jaxrs/org/raml/jaxrs/test/resource/Things.java");
+        assertThat(read(things), containsString("getThings"));
+        assertThat(new File(things.getParentFile(), "Others.java").isFile(), is(true));
+
+        // nothing changed: generation is skipped, the configuration being reused
+        final BuildResult upToDateResult = build();
+        assertThat(upToDateResult.task(TASK_PATH).getOutcome(), is(TaskOutcome.UP_TO_DATE));
+        assertThat(upToDateResult.getOutput(), containsString("Reusing configuration cache"));
+
+        // changing an included resource is a change of input
+        write("src/main/raml/includes/things.yaml", "displayName: Things\nget:\npost:\n");
+        assertThat(build().task(TASK_PATH).getOutcome(), is(TaskOutcome.SUCCESS));
+        assertThat(read(things), containsString("postThings"));
+
+        // the generated sources are restored from the build cache
+        assertThat(build("clean").task(TASK_PATH).getOutcome(), is(TaskOutcome.FROM_CACHE));
+        assertThat(read(things), containsString("postThings"));
+    }
+
+    @Test
+    public void generatesSourcePathsWithoutASourceDirectory() throws Exception
+    {
+        write("settings.gradle", "rootProject.name = 'test'\n");
+        write("build.gradle", "plugins {\n    id 'java'\n    id 'org.raml.jaxrs-codegen'\n}\n"
+                              + "ramlJaxrs {\n    basePackageName = 'org.raml.jaxrs.test'\n"
+                              + "    sourcePaths.from('api/api.raml')\n}\n");
+        write("api/api.raml", "#%RAML 0.8\n---\ntitle: Test\n/things:\n  get:\n");
+
+        assertThat(build().task(TASK_PATH).getOutcome(), is(TaskOutcome.SUCCESS));
+        assertThat(new File(projectFolder.getRoot(),
+            "build/generated-sources/raml-jaxrs/org/raml/jaxrs/test/resource/Things.java").isFile(), is(true));
+    }
+
+    private BuildResult build(final String... tasks)
+    {
+        final List<String> arguments = new ArrayList<String>(Arrays.asList(tasks));
+        arguments.addAll(Arrays.asList(RamlJaxrsCodegenPlugin.TASK_NAME, "--configuration-cache",
+            "--build-cache"));
+
+        return GradleRunner.create()
+            .withProjectDir(projectFolder.getRoot())
+            .withPluginClasspath()
+            .withArguments(arguments)
+            .build();
+    }
+
+    private void write(final String path, final String content) throws IOException
+    {
+        final File file = new File(projectFolder.getRoot(), path);
+        file.getParentFile().mkdirs();
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String read(final File file) throws IOException
+    {
+        return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+    }
+}
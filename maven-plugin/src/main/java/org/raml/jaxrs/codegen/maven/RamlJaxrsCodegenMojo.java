@@ -18,25 +18,33 @@ package org.raml.jaxrs.codegen.maven;
 import static org.apache.maven.plugins.annotations.ResolutionScope.COMPILE_PLUS_RUNTIME;
 
 import java.io.File;
-import java.io.FileReader;
 import java.io.IOException;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
 
 import org.apache.commons.io.FileUtils;
 import org.apache.maven.plugin.AbstractMojo;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugins.annotations.Component;
 import org.apache.maven.plugins.annotations.LifecyclePhase;
 import org.apache.maven.plugins.annotations.Mojo;
 import org.apache.maven.plugins.annotations.Parameter;
 import org.apache.maven.project.MavenProject;
 import org.jsonschema2pojo.AnnotationStyle;
+import org.raml.jaxrs.codegen.core.BatchGenerationException;
+import org.raml.jaxrs.codegen.core.BatchGenerator;
 import org.raml.jaxrs.codegen.core.Configuration;
 import org.raml.jaxrs.codegen.core.Configuration.JaxrsVersion;
-import org.raml.jaxrs.codegen.core.Generator;
+import org.raml.jaxrs.codegen.core.GenerationListener;
+import org.raml.jaxrs.codegen.core.GenerationMetrics;
+import org.raml.jaxrs.codegen.core.GenerationPhase;
+import org.sonatype.plexus.build.incremental.BuildContext;
 
 /**
  * When invoked, this goals read one or more <a href="http://raml.org">RAML</a> files and produces
@@ -48,6 +56,9 @@ public class RamlJaxrsCodegenMojo extends AbstractMojo
     @Parameter(defaultValue = "${project}")
     private MavenProject project;
 
+    @Component
+    private BuildContext buildContext;
+
     /**
      * Skip plug-in execution.
      */
@@ -93,7 +104,11 @@ public class RamlJaxrsCodegenMojo extends AbstractMojo
     /**
      * Whether to empty the output directory before generation occurs, to clear out all source files
      * that have been generated previously.
+     *
+     * @deprecated the files RAML files don't produce anymore are deleted anyway, while emptying the
+     *             output directory forces everything to be compiled again.
      */
+    @Deprecated
     @Parameter(property = "removeOldOutput", defaultValue = "false")
     private boolean removeOldOutput;
 
@@ -112,6 +127,80 @@ public class RamlJaxrsCodegenMojo extends AbstractMojo
     */
     @Parameter(property = "jsonMapperConfiguration")
     private Map<String, String> jsonMapperConfiguration;
+
+    /**
+     * Number of RAML files to generate concurrently. Each file gets its own generator, so values
+     * greater than one let generation scale with the available cores.
+     */
+    @Parameter(property = "threads", defaultValue = "1")
+    private int threads;
+
+    /**
+     * Whether to skip the RAML files that, like the resources they include and the plug-in
+     * configuration, didn't change since they were last generated, according to the manifest kept in
+     * the output directory. Always enabled for the incremental builds of an IDE.
+     */
+    @Parameter(property = "incremental", defaultValue = "false")
+    private boolean incremental;
+
+    /**
+     * Optional directory where to cache the model classes generated from JSON schemas. Schemas that
+     * didn't change are then not generated again, across builds and across the modules sharing this
+     * directory.
+     */
+    @Parameter(property = "modelCacheDirectory")
+    private File modelCacheDirectory;
+
+    /**
+     * Number of threads generating the top-level resources of a single RAML file. The generated code
+     * is the same whatever the value, which only matters for RAML files with many resources.
+     */
+    @Parameter(property = "resourceThreads", defaultValue = "1")
+    private int resourceThreads;
+
+    /**
+     * Whether to write each top-level resource interface as soon as it is generated and then release
+     * it, so the heap used depends on the largest resource rather than on the whole API. The
+     * generated code is the same whatever the value.
+     */
+    @Parameter(property = "streaming", defaultValue = "false")
+    private boolean streaming;
+
+    /**
+     * Whether resource methods should take a suspended <code>AsyncResponse</code>, to resume with
+     * their typed response, instead of returning it. Requires JAX-RS 2.0.
+     */
+    @Parameter(property = "asyncResourceMethods", defaultValue = "false")
+    private boolean asyncResourceMethods;
+
+    /**
+     * Whether response builders taking an entity should also be generated with
+     * <code>StreamingOutput</code>, <code>InputStream</code> and <code>ReadableByteChannel</code>
+     * entity arguments. Their names end with <code>Streaming</code>, e.g. <code>withJsonOKStreaming</code>.
+     */
+    @Parameter(property = "streamingResponseBuilders", defaultValue = "false")
+    private boolean streamingResponseBuilders;
+
+    /**
+     * Whether request bodies without a schema should be passed to resource methods as an
+     * <code>InputStream</code>, or a <code>Reader</code> for text media types.
+     */
+    @Parameter(property = "streamingRequestBodies", defaultValue = "false")
+    private boolean streamingRequestBodies;
+
+    /**
+     * Whether the model classes of a JSON schema defined under the same name by several RAML files
+     * should only be generated once.
+     */
+    @Parameter(property = "shareSchemaModels", defaultValue = "false")
+    private boolean shareSchemaModels;
+
+    /**
+     * Optional file where to write a JSON report of the time and heap spent in each generation phase,
+     * along with the number of classes, methods and files generated.
+     */
+    @Parameter(property = "metricsReport")
+    private File metricsReport;
     
     /**
     * Throw exception on Resource Method
@@ -133,6 +222,16 @@ public class RamlJaxrsCodegenMojo extends AbstractMojo
             throw new MojoExecutionException("One of sourceDirectory or sourcePaths must be provided");
         }
 
+        if (threads < 1)
+        {
+            throw new MojoExecutionException("threads must be greater than zero");
+        }
+
+        if (resourceThreads < 1)
+        {
+            throw new MojoExecutionException("resourceThreads must be greater than zero");
+        }
+
         try
         {
             FileUtils.forceMkdir(outputDirectory);
@@ -142,8 +241,11 @@ public class RamlJaxrsCodegenMojo extends AbstractMojo
             throw new MojoExecutionException("Failed to create directory: " + outputDirectory, ioe);
         }
 
-        if (removeOldOutput)
+        // an IDE build must only touch what changed, which the manifest takes care of
+        if (removeOldOutput && !buildContext.isIncremental())
         {
+            getLog().warn(
+                "removeOldOutput is deprecated: the files RAML files don't produce anymore are deleted anyway");
             try
             {
                 FileUtils.cleanDirectory(outputDirectory);
@@ -165,6 +267,13 @@ public class RamlJaxrsCodegenMojo extends AbstractMojo
             configuration.setJsonMapper(AnnotationStyle.valueOf(jsonMapper.toUpperCase()));
             configuration.setSourceDirectory(sourceDirectory);
             configuration.setJsonMapperConfiguration(jsonMapperConfiguration);
+            configuration.setModelCacheDirectory(modelCacheDirectory);
+            configuration.setResourceThreads(resourceThreads);
+            configuration.setStreaming(streaming);
+            configuration.setAsyncResourceMethods(asyncResourceMethods);
+            configuration.setStreamingResponseBuilders(streamingResponseBuilders);
+            configuration.setStreamingRequestBodies(streamingRequestBodies);
+            configuration.setShareSchemaModels(shareSchemaModels);
             /*
             if (methodThrowException != null) {
                 configuration.setMethodThrowException(Class.forName(methodThrowException));
@@ -178,22 +287,79 @@ public class RamlJaxrsCodegenMojo extends AbstractMojo
 
         project.addCompileSourceRoot(outputDirectory.getPath());
 
-        File currentSourcePath = null;
+        final Collection<File> ramlFiles = getRamlFiles();
+
+        if (buildContext.isIncremental() && !hasDelta(ramlFiles))
+        {
+            getLog().info("No RAML file changed, skipping generation");
+            return;
+        }
+
+        final GenerationMetrics metrics = new GenerationMetrics();
 
         try
         {
-            final Generator generator = new Generator();
+            final BatchGenerator batchGenerator = new BatchGenerator(threads);
+            batchGenerator.setIncremental(incremental || buildContext.isIncremental());
+            batchGenerator.addListener(metrics);
+            batchGenerator.addListener(new BuildContextRefresher());
+            batchGenerator.run(ramlFiles, configuration);
+        }
+        catch (final BatchGenerationException bge)
+        {
+            for (final Entry<File, Throwable> failure : bge.getFailures().entrySet())
+            {
+                getLog().error("Error generating Java classes from: " + failure.getKey(), failure.getValue());
+            }
+            throw new MojoExecutionException(bge.getMessage(), bge);
+        }
+        finally
+        {
+            writeMetricsReport(metrics);
+        }
+    }
+
+    /**
+     * @return true if any RAML file, or any file in their directories or the source directory where
+     *         included resources usually are, changed since the previous build.
+     */
+    private boolean hasDelta(final Collection<File> ramlFiles)
+    {
+        final Set<File> sources = new LinkedHashSet<File>();
+        if (sourceDirectory != null)
+        {
+            sources.add(sourceDirectory);
+        }
+        for (final File ramlFile : ramlFiles)
+        {
+            sources.add(ramlFile);
+            sources.add(ramlFile.getAbsoluteFile().getParentFile());
+        }
 
-            for (final File ramlFile : getRamlFiles())
+        for (final File source : sources)
+        {
+            if (buildContext.hasDelta(source))
             {
-                getLog().info("Generating Java classes from: " + ramlFile);
-                currentSourcePath = ramlFile;
-                generator.run(new FileReader(ramlFile), configuration);
+                return true;
             }
         }
-        catch (final Exception e)
+        return false;
+    }
+
+    private void writeMetricsReport(final GenerationMetrics metrics)
+    {
+        if (metricsReport == null)
+        {
+            return;
+        }
+
+        try
+        {
+            metrics.writeReport(metricsReport);
+        }
+        catch (final IOException ioe)
         {
-            throw new MojoExecutionException("Error generating Java classes from: " + currentSourcePath, e);
+            getLog().warn("Failed to write metrics report: " + metricsReport, ioe);
         }
     }
 
@@ -218,4 +384,46 @@ public class RamlJaxrsCodegenMojo extends AbstractMojo
             return FileUtils.listFiles(sourceDirectory, new String[]{"raml", "yaml"}, true);
         }
     }
+
+    /**
+     * Tells the IDE about the files written or deleted, leaving alone the ones that didn't change.
+     */
+    private class BuildContextRefresher implements GenerationListener
+    {
+        @Override
+        public void phaseStarted(final GenerationPhase phase, final String subject)
+        {
+            // nothing to refresh
+        }
+
+        @Override
+        public void phaseCompleted(final GenerationPhase phase, final String subject)
+        {
+            // nothing to refresh
+        }
+
+        @Override
+        public void classGenerated(final String className, final int methodCount)
+        {
+            // nothing to refresh
+        }
+
+        @Override
+        public void fileGenerated(final String path)
+        {
+            // nothing to refresh
+        }
+
+        @Override
+        public synchronized void fileWritten(final String path)
+        {
+            buildContext.refresh(new File(outputDirectory, path));
+        }
+
+        @Override
+        public synchronized void fileDeleted(final String path)
+        {
+            buildContext.refresh(new File(outputDirectory, path));
+        }
+    }
 }